@@ -1,26 +1,39 @@
 package org.heneveld.maven.license_audit;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.maven.Maven;
+import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.DefaultArtifact;
 import org.apache.maven.artifact.handler.ArtifactHandler;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Contributor;
+import org.apache.maven.model.DependencyManagement;
 import org.apache.maven.model.License;
 import org.apache.maven.model.Organization;
 import org.apache.maven.plugin.AbstractMojo;
@@ -28,24 +41,49 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.DefaultDependencyResolutionRequest;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
 import org.apache.maven.project.DependencyResolutionException;
 import org.apache.maven.project.DependencyResolutionResult;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuilder;
 import org.apache.maven.project.ProjectBuildingException;
+import org.apache.maven.project.ProjectBuildingRequest;
 import org.apache.maven.project.ProjectBuildingResult;
 import org.apache.maven.project.ProjectDependenciesResolver;
 import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
-import org.eclipse.aether.collection.DependencyCollectionContext;
-import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.artifact.ArtifactTypeRegistry;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.graph.DependencyFilter;
 import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.heneveld.maven.license_audit.LicenseAuditMojo.DependencyDetail;
 import org.heneveld.maven.license_audit.LicenseAuditMojo.DetailLevel;
 import org.heneveld.maven.license_audit.util.Coords;
+import org.heneveld.maven.license_audit.util.DependencyGraphIndex;
+import org.heneveld.maven.license_audit.util.DependencySnapshot;
+import org.heneveld.maven.license_audit.util.DescriptorPrefetcher;
+import org.heneveld.maven.license_audit.util.DepthLimitingDependencyTraverser;
+import org.heneveld.maven.license_audit.util.Fingerprint;
+import org.heneveld.maven.license_audit.util.JarLicenseInfo;
+import org.heneveld.maven.license_audit.util.JarLicenseScanner;
 import org.heneveld.maven.license_audit.util.LicenseCodes;
+import org.heneveld.maven.license_audit.util.LicenseTextMatcher;
+import org.heneveld.maven.license_audit.util.MavenUtil;
+import org.heneveld.maven.license_audit.util.OverridesFileCache;
+import org.heneveld.maven.license_audit.util.OverridesIndex;
+import org.heneveld.maven.license_audit.util.ProjectMetadata;
+import org.heneveld.maven.license_audit.util.ProjectMetadataCache;
 import org.heneveld.maven.license_audit.util.ProjectsOverrides;
+import org.heneveld.maven.license_audit.util.RootScopeDependencySelector;
+import org.heneveld.maven.license_audit.util.SessionCache;
 import org.heneveld.maven.license_audit.util.SimpleMultiMap;
+import org.heneveld.maven.license_audit.util.StreamingPomReader;
+import org.heneveld.maven.license_audit.util.ThreadPools;
 
 public abstract class AbstractLicensingMojo extends AbstractMojo {
 
@@ -70,6 +108,11 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
     @Parameter( defaultValue = "", property = "overridesFile", required = false )
     protected String overridesFile;
     protected ProjectsOverrides overrides = new ProjectsOverrides();
+    // each overrides and extras file is parsed once; shared with other executions and kept on disk in setupMojo if configured
+    protected OverridesFileCache overridesFileCache = new OverridesFileCache(null, new SessionCache<ProjectsOverrides>());
+    
+    @Parameter( defaultValue = "", property = "overridesIndex", required = false )
+    protected String overridesIndex;
     
     @Parameter( defaultValue = "", property = "extrasFile", required = false )
     protected String extrasFile;
@@ -80,6 +123,55 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
     @Parameter( defaultValue = "false", property = "onlyExtras", required = true )
     protected boolean onlyExtras;
     
+    @Parameter( defaultValue = "1", property = "loadThreads", required = true )
+    protected int loadThreads;
+    
+    @Parameter( defaultValue = "1", property = "collectThreads", required = true )
+    protected int collectThreads;
+    // dependency descriptors read ahead of the collector, over all modules, if collectThreads>1
+    protected int descriptorsPrefetched = 0;
+    
+    @Parameter( defaultValue = "false", property = "collectOnly", required = true )
+    protected boolean collectOnly;
+    
+    @Parameter( defaultValue = "false", property = "metadataCache", required = true )
+    protected boolean useMetadataCache;
+    
+    @Parameter( defaultValue = "", property = "metadataCacheDir", required = false )
+    protected String metadataCacheDir;
+    protected ProjectMetadataCache metadataCache = null;
+    
+    @Parameter( defaultValue = "false", property = "streamingPomReader", required = true )
+    protected boolean streamingPomReader;
+    protected StreamingPomReader pomReader = null;
+    
+    @Parameter( defaultValue = "false", property = "incremental", required = true )
+    protected boolean incremental;
+    protected String fingerprint = null;
+    protected boolean upToDate = false;
+    static final int FINGERPRINT_VERSION = 1;
+    
+    @Parameter( defaultValue = "true", property = "sharedProjectCache", required = true )
+    protected boolean useSharedProjectCache;
+    protected SessionCache<ProjectLoad> sharedProjectCache = null;
+    
+    @Parameter( defaultValue = "", property = "writeSnapshot", required = false )
+    protected String writeSnapshot;
+    
+    @Parameter( defaultValue = "", property = "readSnapshot", required = false )
+    protected String readSnapshot;
+    // set if the report is being generated from a snapshot
+    protected DependencySnapshot snapshot = null;
+    
+    @Parameter( defaultValue = "false", property = "scanJars", required = true )
+    protected boolean scanJars;
+    
+    @Parameter( defaultValue = "4", property = "scanThreads", required = true )
+    protected int scanThreads;
+    protected JarLicenseScanner jarScanner = null;
+    // what the artifacts of each project say about their licensing, if scanJars
+    protected Map<String,JarLicenseInfo> jarLicenses = new LinkedHashMap<String,JarLicenseInfo>();
+    
     @Component
     Maven defaultMaven;
     
@@ -95,35 +187,70 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
     ProjectDependenciesResolver depsResolver;
     @Component
     ArtifactHandler artifactHandler;
+    @Component
+    RepositorySystem repositorySystem;
 
     @Parameter(property = "project.remoteArtifactRepositories")
     protected List<ArtifactRepository> remoteRepositories;
     
-    protected DependencyNode rootDependencyGraph;
-    // keyed on groupId + artifactId + version 
-    protected Set<String> includedProjects = new LinkedHashSet<String>();
-    // keyed on groupId + artifactId + packaging + classifier + version, to project id 
-    protected Map<String,String> includedBaseArtifactsCoordsToProject = new LinkedHashMap<String,String>();
-    // keyed on groupId + artifactId + packaging + classifier 
-    protected Map<String,String> includedArtifactsUnversionedToBaseArtifactCoords = new LinkedHashMap<String,String>();
-    // keyed on groupId + artifactId 
-    protected Map<String,String> includedProjectsUnversionedToVersioned = new LinkedHashMap<String,String>();
-    protected SimpleMultiMap<String,String> projectToDependencyGraphParent = new SimpleMultiMap<String,String>();
-    protected SimpleMultiMap<String,org.apache.maven.artifact.Artifact> projectArtifacts = new SimpleMultiMap<String,org.apache.maven.artifact.Artifact>();
+    // the nodes, artifacts and projects included, and the parents in the graph of each project
+    protected DependencyGraphIndex graph = new DependencyGraphIndex();
+    
+    /** Whether all projects in the reactor are audited together, set by the aggregating goals. */
+    protected boolean aggregate = false;
+    // ids of the reactor projects, if aggregating
+    protected Set<String> reactorProjects = new LinkedHashSet<String>();
+    Coords currentReactorModule = null;
 
     // keyed by groupId + artifactId + version
     Map<String,MavenProject> projectByIdCache = new LinkedHashMap<String,MavenProject>();
     SimpleMultiMap<String,Object> projectErrors = new SimpleMultiMap<String,Object>();
-    SimpleMultiMap<String,DependencyNode> depNodesByIdCache = new SimpleMultiMap<String,DependencyNode>();
+    // artifacts whose projects should be loaded after the graph is walked, in the order encountered;
+    // null if projects are loaded as the graph is walked
+    List<org.apache.maven.artifact.Artifact> deferredProjectLoads = null;
 
     int forcedReleaseYear = -1;
 
+    /** The information an output can use, so that what it doesn't use need not be resolved, loaded or computed. */
+    protected enum ReportData {
+        /** the dependency graph; without it only the projects being audited are known */
+        GRAPH,
+        /** the projects in the graph; without them only their ids are known */
+        PROJECTS,
+        LICENSES,
+        COPYRIGHT,
+        /** description, organization, contributors and developers */
+        DETAILS,
+        /** the dependencies of each project and how each is included */
+        DEPENDENCIES
+    }
+    
+    /** What {@link #generateOutput()} uses; by default everything, except the graph if {@link #onlyExtras}. */
+    protected Set<ReportData> getReportDataNeeded() throws MojoExecutionException {
+        Set<ReportData> result = EnumSet.allOf(ReportData.class);
+        if (onlyExtras) {
+            result.remove(ReportData.GRAPH);
+            result.remove(ReportData.PROJECTS);
+        }
+        return result;
+    }
+
     public void execute() throws MojoExecutionException {
         setupMojo();
         
         resolveDependencies();
         
-        generateOutput();
+        // when writing a snapshot they are scanned before it is written, and when reading one they are taken from it
+        if (scanJars && !upToDate && isEmpty(writeSnapshot) && isEmpty(readSnapshot) && getReportDataNeeded().contains(ReportData.LICENSES)) {
+            scanJars();
+        }
+        
+        if (upToDate) {
+            getLog().info("Dependencies and configuration unchanged since "+outputFilePath+" was written; not regenerating it");
+        } else {
+            openOutputWriter();
+            generateOutput();
+        }
         
         finishMojo();
     }
@@ -132,16 +259,16 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
         includeDependencyScopes = ","+includeDependencyScopes.toLowerCase()+",";
         includeAllDependencyScopes = includeScope("all");
             
-        if (isNonEmpty(outputFilePath)) {
-            try {
-                outputWriter = new FileWriter(outputFilePath);
-            } catch (IOException e) {
-                throw new MojoExecutionException("Error creating "+outputFilePath+": "+e);
-            }
+        if (incremental && isEmpty(outputFilePath)) {
+            getLog().warn("Ignoring incremental as there is no outputFile");
+            incremental = false;
         }
-        
-        if (isNonEmpty(overridesFile)) addOverridesFromFile("overrides", overrides, overridesFile);
-        loadExtrasTo(overrides, "overrides (extras)");
+        if (incremental && isNonEmpty(readSnapshot)) {
+            getLog().warn("Ignoring incremental as reading from snapshot "+readSnapshot);
+            incremental = false;
+        }
+        // if incremental, only opened once we know it needs to be written
+        if (!incremental) openOutputWriter();
         
         if (isNonEmpty(licensesPreferredRaw)) {
             licensesPreferred = Arrays.asList(licensesPreferredRaw.split("\\s*,\\s*"));
@@ -150,6 +277,51 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
         if (maxDepth<0) {
             maxDepth = Integer.MAX_VALUE;
         }
+        
+        // incremental uses the cache so that only the projects which have changed are loaded again
+        if (useMetadataCache || isNonEmpty(metadataCacheDir) || incremental) {
+            File dir = isNonEmpty(metadataCacheDir) ? new File(metadataCacheDir) :
+                new File(mavenSession.getRepositorySession().getLocalRepository().getBasedir(), ".cache/license-audit");
+            getLog().debug("Using project metadata cache at "+dir);
+            metadataCache = new ProjectMetadataCache(dir);
+        }
+        
+        if (useSharedProjectCache || metadataCache!=null) {
+            overridesFileCache = new OverridesFileCache(metadataCache==null ? null : new File(metadataCache.getDir(), "overrides"),
+                useSharedProjectCache ? SessionCache.<ProjectsOverrides>forSession(mavenSession.getRepositorySession(), "overrides") : new SessionCache<ProjectsOverrides>());
+        }
+        if (isNonEmpty(overridesIndex)) overrides = ProjectsOverrides.fromIndex(openOverridesIndex(new File(overridesIndex)));
+        if (isNonEmpty(overridesFile)) addOverridesFromFile("overrides", overrides, overridesFile);
+        loadExtrasTo(overrides, "overrides (extras)");
+        
+        if (streamingPomReader) {
+            pomReader = new StreamingPomReader(new StreamingPomReader.PomResolver() {
+                public File resolvePom(String groupId, String artifactId, String version) throws IOException {
+                    return resolvePomFile(groupId, artifactId, version);
+                }
+            });
+        }
+        
+        if (useSharedProjectCache) {
+            // projects read from POMs are not quite the same as those built by maven so keep them apart
+            sharedProjectCache = SessionCache.forSession(mavenSession.getRepositorySession(),
+                "projects"+(pomReader!=null ? "-streaming" : ""));
+        }
+        
+        if (scanJars) {
+            jarScanner = new JarLicenseScanner(metadataCache==null ? null : new File(metadataCache.getDir(), "jars"),
+                useSharedProjectCache ? SessionCache.<JarLicenseInfo>forSession(mavenSession.getRepositorySession(), "jars") : null);
+        }
+    }
+    
+    protected void openOutputWriter() throws MojoExecutionException {
+        if (outputWriter==null && isNonEmpty(outputFilePath)) {
+            try {
+                outputWriter = new FileWriter(outputFilePath);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Error creating "+outputFilePath+": "+e);
+            }
+        }
     }
     
     protected ProjectsOverrides loadExtras() throws MojoExecutionException {
@@ -169,14 +341,29 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
         return target;
     }
 
+    protected OverridesIndex openOverridesIndex(final File file) throws MojoExecutionException {
+        getLog().debug("Using overrides index: "+file);
+        try {
+            if (!useSharedProjectCache) return OverridesIndex.open(file);
+            // mapped once per session, unless it is rebuilt
+            return SessionCache.<OverridesIndex>forSession(mavenSession.getRepositorySession(), "overrides-index").get(
+                file.getAbsolutePath()+"@"+file.lastModified()+"/"+file.length(), new Callable<OverridesIndex>() {
+                    public OverridesIndex call() throws IOException {
+                        return OverridesIndex.open(file);
+                    }
+                });
+        } catch (Exception e) {
+            Throwable cause = e instanceof IllegalStateException && e.getCause()!=null ? e.getCause() : e;
+            throw new MojoExecutionException("Error reading overrides index "+file+": "+cause, cause);
+        }
+    }
+    
     protected void addOverridesFromFile(String context, ProjectsOverrides overrides, String file) throws MojoExecutionException {
         if (file!=null && file.length()>0) {
             // is loaded again below, but add to overrides so info is available
             try {
                 getLog().debug("Reading "+context+" file: "+file);
-                FileReader fr = new FileReader(file);
-                overrides.addFromYaml(fr);
-                fr.close();
+                overrides.addAll(overridesFileCache.load(new File(file)));
             } catch (Exception e) {
                 throw new MojoExecutionException("Error reading "+file+": "+e, e);
             }
@@ -184,24 +371,311 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
     }
 
     protected void resolveDependencies() throws MojoExecutionException {
-        DependencyResolutionResult depRes;
+        if (isNonEmpty(readSnapshot)) {
+            resolveDependenciesFromSnapshot(new File(readSnapshot));
+            return;
+        }
+        
+        List<MavenProject> modules = getProjectsToAudit();
+        // record all modules first so that those which depend on others in the reactor don't try to load them
+        for (MavenProject module: modules) {
+            projectByIdCache.put(Coords.of(module).normal(), module);
+            if (aggregate) reactorProjects.add(Coords.of(module).normal());
+        }
+        
+        // a snapshot may be rendered in any format so needs everything
+        Set<ReportData> needed = isNonEmpty(writeSnapshot) ? EnumSet.allOf(ReportData.class) : getReportDataNeeded();
+        if (!needed.contains(ReportData.GRAPH)) {
+            getLog().debug("Not resolving dependencies as the graph is not used");
+            return;
+        }
+        
+        Map<MavenProject,DependencyNode> graphs = new LinkedHashMap<MavenProject,DependencyNode>();
+        for (MavenProject module: modules) {
+            DependencyNode graph = resolveDependencyGraph(module);
+            graphs.put(module, graph);
+        }
+        
+        if (incremental) {
+            fingerprint = computeFingerprint(graphs);
+            upToDate = fingerprint.equals(readFingerprint());
+            // nothing need be loaded, unless a snapshot is wanted (it is written every time, as it is not checked)
+            if (upToDate && isEmpty(writeSnapshot)) return;
+        }
+        
+        if (loadThreads>1 || !needed.contains(ReportData.PROJECTS)) deferredProjectLoads = new ArrayList<org.apache.maven.artifact.Artifact>();
+        for (Map.Entry<MavenProject,DependencyNode> graph: graphs.entrySet()) {
+            currentReactorModule = aggregate ? Coords.of(graph.getKey()) : null;
+            collectDeps(graph.getValue(), graph.getKey(), 0);
+        }
+        currentReactorModule = null;
+        if (deferredProjectLoads!=null) {
+            if (needed.contains(ReportData.PROJECTS)) loadProjects(deferredProjectLoads);
+            else getLog().debug("Not loading "+deferredProjectLoads.size()+" projects as they are not used");
+            deferredProjectLoads = null;
+        }
+        
+        if (isNonEmpty(writeSnapshot)) {
+            // so that what the jars say is in the snapshot, as they might not be there when it is read
+            if (scanJars) scanJars();
+            writeSnapshot(new File(writeSnapshot), graphs);
+        }
+    }
+    
+    /** Writes the dependency graphs, the projects loaded (with errors) and what their jars say, for {@link #readSnapshot}. */
+    protected void writeSnapshot(File file, Map<MavenProject,DependencyNode> graphs) throws MojoExecutionException {
+        DependencySnapshot s = new DependencySnapshot();
+        s.rootProject = Coords.of(project).normal();
+        s.aggregate = aggregate;
+        s.reactorProjects.addAll(reactorProjects);
+        for (Map.Entry<MavenProject,DependencyNode> graph: graphs.entrySet()) {
+            s.graphs.put(Coords.of(graph.getKey()).normal(), graph.getValue());
+        }
+        for (Map.Entry<String,MavenProject> p: projectByIdCache.entrySet()) {
+            s.projects.put(p.getKey(), ProjectMetadata.of(p.getValue()));
+            int year = releaseYearOf(p.getValue(), p.getKey());
+            if (year!=-1) s.releaseYears.put(p.getKey(), year);
+        }
+        for (Map.Entry<String,Set<Object>> e: projectErrors.entrySet()) {
+            List<String> errors = new ArrayList<String>();
+            for (Object error: e.getValue()) errors.add(String.valueOf(error));
+            s.errors.put(e.getKey(), errors);
+        }
+        s.jarLicenses.putAll(jarLicenses);
+        try {
+            s.writeTo(file);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing snapshot "+file+": "+e, e);
+        }
+        getLog().info("Wrote snapshot of "+s.projects.size()+" projects to "+file);
+    }
+    
+    /** Sets up the graph and projects as they were when the snapshot was written, without resolving anything. */
+    protected void resolveDependenciesFromSnapshot(File file) throws MojoExecutionException {
+        try {
+            snapshot = DependencySnapshot.readFrom(file);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error reading snapshot "+file+": "+e, e);
+        }
+        getLog().debug("Reading dependencies from snapshot "+file);
+        for (Map.Entry<String,ProjectMetadata> p: snapshot.projects.entrySet()) {
+            projectByIdCache.put(p.getKey(), p.getValue().toProject(artifactHandler));
+        }
+        for (Map.Entry<String,List<String>> e: snapshot.errors.entrySet()) {
+            for (String error: e.getValue()) projectErrors.put(e.getKey(), error);
+        }
+        // as scanned when it was written (if scanJars was set then); the jars themselves may not be here
+        jarLicenses.putAll(snapshot.jarLicenses);
+        if (scanJars && snapshot.jarLicenses.isEmpty()) {
+            getLog().warn("Ignoring scanJars as reading from snapshot "+file+", which has no jar information; set scanJars when writing it");
+        }
+        aggregate = snapshot.aggregate;
+        reactorProjects.addAll(snapshot.reactorProjects);
+        MavenProject root = projectByIdCache.get(snapshot.rootProject);
+        if (root!=null) project = root;
+        
+        // everything is already loaded; anything not is an error recorded above
+        deferredProjectLoads = new ArrayList<org.apache.maven.artifact.Artifact>();
+        for (Map.Entry<String,DependencyNode> graph: snapshot.graphs.entrySet()) {
+            MavenProject module = projectByIdCache.get(graph.getKey());
+            currentReactorModule = aggregate && module!=null ? Coords.of(module) : null;
+            collectDeps(graph.getValue(), module, 0);
+        }
+        currentReactorModule = null;
+        deferredProjectLoads = null;
+    }
+    
+    protected File getFingerprintFile() {
+        return new File(outputFilePath+".fingerprint");
+    }
+    
+    protected String readFingerprint() {
+        File f = getFingerprintFile();
+        if (!f.exists() || !new File(outputFilePath).exists()) return null;
+        try {
+            return new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            getLog().warn("Unable to read "+f+"; will regenerate output: "+e);
+            return null;
+        }
+    }
+    
+    protected void writeFingerprint() throws MojoExecutionException {
+        File f = getFingerprintFile();
+        try {
+            Files.write(f.toPath(), (fingerprint+"\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing "+f+": "+e, e);
+        }
+    }
+    
+    /** Computes a fingerprint of everything the output depends on: the goal and its parameters,
+     * the POMs of the projects audited, the overrides and extras files, and the dependency graphs. */
+    protected String computeFingerprint(Map<MavenProject,DependencyNode> graphs) throws MojoExecutionException {
+        Fingerprint f = new Fingerprint();
+        f.add("fingerprint", FINGERPRINT_VERSION);
+        f.add("goal", getClass().getName());
+        f.add("plugin", getClass().getPackage()==null ? null : getClass().getPackage().getImplementationVersion());
+        addParametersToFingerprint(f);
+        try {
+            for (Map.Entry<MavenProject,DependencyNode> graph: graphs.entrySet()) {
+                f.add("project", Coords.of(graph.getKey()).normal());
+                f.addFile("pom", graph.getKey().getFile());
+                f.addGraph(graph.getValue());
+            }
+            if (isNonEmpty(overridesIndex)) f.addFile("overridesIndex", new File(overridesIndex));
+            if (isNonEmpty(overridesFile)) f.addFile("overridesFile", new File(overridesFile));
+            if (isNonEmpty(extrasFile)) f.addFile("extrasFile", new File(extrasFile));
+            if (isNonEmpty(extrasFiles)) {
+                for (String ef: extrasFiles.replace(File.pathSeparator, ";").split(";")) {
+                    if (isNonEmpty(ef)) f.addFile("extrasFiles", new File(ef));
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error computing fingerprint: "+e, e);
+        }
+        return f.finish();
+    }
+    
+    /** Adds the parameters which affect the output; subclasses should add theirs. */
+    protected void addParametersToFingerprint(Fingerprint f) {
+        f.add("depth", maxDepth);
+        f.add("includeDependencyScopes", includeDependencyScopes);
+        f.add("excludeRootOptionalDependencies", excludeRootOptionalDependencies);
+        f.add("licensesPreferred", licensesPreferredRaw);
+        f.add("overridesIndex", overridesIndex);
+        f.add("overridesFile", overridesFile);
+        f.add("extrasFile", extrasFile);
+        f.add("extrasFiles", extrasFiles);
+        f.add("onlyExtras", onlyExtras);
+        f.add("writeSnapshot", writeSnapshot);
+        f.add("readSnapshot", readSnapshot);
+        f.add("collectOnly", collectOnly);
+        f.add("streamingPomReader", streamingPomReader);
+        f.add("scanJars", scanJars);
+        f.add("aggregate", aggregate);
+        // copyright years in the output default to the current year
+        f.add("year", forcedReleaseYear!=-1 ? forcedReleaseYear : Calendar.getInstance().get(Calendar.YEAR));
+    }
+    
+    /** The project whose dependencies are audited or, if {@link #aggregate}, all projects in the reactor. */
+    protected List<MavenProject> getProjectsToAudit() {
+        if (aggregate && mavenSession.getProjects()!=null && !mavenSession.getProjects().isEmpty()) {
+            return mavenSession.getProjects();
+        }
+        return Collections.singletonList(project);
+    }
+
+    protected DependencyNode resolveDependencyGraph(MavenProject module) throws MojoExecutionException {
+        DefaultRepositorySystemSession repositorySession = new DefaultRepositorySystemSession(mavenSession.getRepositorySession());
+        // prune while collecting, rather than collecting (and resolving) the full graph and ignoring most of it
+        repositorySession.setDependencySelector(new RootScopeDependencySelector(repositorySession.getDependencySelector(),
+            includeAllDependencyScopes ? null : includeDependencyScopes, excludeRootOptionalDependencies));
+        if (maxDepth!=Integer.MAX_VALUE) {
+            repositorySession.setDependencyTraverser(new DepthLimitingDependencyTraverser(repositorySession.getDependencyTraverser(), maxDepth));
+        }
+        if (collectThreads>1) prefetchDescriptors(module, repositorySession);
+        DependencyNode graph;
+        if (collectOnly) {
+            graph = collectDependencyGraph(module, repositorySession);
+        } else {
+            DependencyResolutionResult depRes;
+            try {
+                DefaultDependencyResolutionRequest depReq = new DefaultDependencyResolutionRequest(module, repositorySession);
+                if (maxDepth!=Integer.MAX_VALUE) {
+                    // the level beyond maxDepth is only reported as being in the graph, so those artifacts aren't needed
+                    depReq.setResolutionFilter(new DependencyFilter() {
+                        public boolean accept(DependencyNode node, List<DependencyNode> parents) {
+                            return parents.size()<=maxDepth;
+                        }
+                    });
+                }
+                depRes = depsResolver.resolve(depReq);
+            } catch (DependencyResolutionException e) {
+                throw new MojoExecutionException("Cannot resolve dependencies for "+module, e);
+            }
+            graph = depRes.getDependencyGraph();
+        }
+        getLog().debug("Dependency graph of "+module+" with scopes "+includeDependencyScopes+":");
+        dump("", graph);
+        return graph;
+    }
+
+    /** Reads the POMs of the dependency graph in parallel, level by level, using {@link #collectThreads} threads,
+     * so that the collector (which is single-threaded) finds them locally. */
+    protected void prefetchDescriptors(MavenProject module, RepositorySystemSession repositorySession) throws MojoExecutionException {
+        long start = System.currentTimeMillis();
+        ArtifactTypeRegistry stereotypes = repositorySession.getArtifactTypeRegistry();
+        DescriptorPrefetcher prefetcher = new DescriptorPrefetcher(repositorySystem, repositorySession,
+            module.getRemoteProjectRepositories(), collectThreads);
+        DependencyManagement depMgmt = module.getDependencyManagement();
+        if (depMgmt!=null) {
+            List<org.eclipse.aether.graph.Dependency> managed = new ArrayList<org.eclipse.aether.graph.Dependency>();
+            for (org.apache.maven.model.Dependency d: depMgmt.getDependencies()) {
+                managed.add(RepositoryUtils.toDependency(d, stereotypes));
+            }
+            prefetcher.addManagedDependencies(managed);
+        }
+        List<org.eclipse.aether.graph.Dependency> direct = new ArrayList<org.eclipse.aether.graph.Dependency>();
+        for (org.apache.maven.model.Dependency d: module.getDependencies()) {
+            org.eclipse.aether.graph.Dependency dependency = RepositoryUtils.toDependency(d, stereotypes);
+            if (repositorySession.getDependencySelector().selectDependency(dependency)) direct.add(dependency);
+        }
         try {
-            DefaultRepositorySystemSession repositorySession = new DefaultRepositorySystemSession(mavenSession.getRepositorySession());
-            ((DefaultRepositorySystemSession)repositorySession).setDependencySelector(newRootScopeDependencySelector(repositorySession.getDependencySelector(), 0));
-            DefaultDependencyResolutionRequest depReq = new DefaultDependencyResolutionRequest(project, repositorySession);
-            depRes = depsResolver.resolve(depReq);
-        } catch (DependencyResolutionException e) {
-            throw new MojoExecutionException("Cannot resolve dependencies for "+project, e);
+            // the level beyond maxDepth is in the graph too
+            prefetcher.prefetch(direct, maxDepth==Integer.MAX_VALUE ? maxDepth : maxDepth+1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted reading dependency descriptors for "+module, e);
         }
-        rootDependencyGraph = depRes.getDependencyGraph();
-        getLog().debug("Dependency graph with scopes "+includeDependencyScopes+":");
-        dump("", rootDependencyGraph);
+        descriptorsPrefetched += prefetcher.getRead();
+        getLog().debug("Read "+prefetcher.getRead()+" dependency descriptors ("+prefetcher.getFailed()+" failed) for "+module+
+            " using "+collectThreads+" threads in "+(System.currentTimeMillis()-start)+"ms");
+    }
 
-        projectByIdCache.put(Coords.of(project).normal(), project);
-        collectDeps(rootDependencyGraph, project, 0);
+    /** Builds the graph as {@link ProjectDependenciesResolver} does but without resolving the artifacts,
+     * so only POMs are downloaded; artifacts in the graph will not have files. */
+    protected DependencyNode collectDependencyGraph(MavenProject module, RepositorySystemSession repositorySession) throws MojoExecutionException {
+        ArtifactTypeRegistry stereotypes = repositorySession.getArtifactTypeRegistry();
+        CollectRequest collect = new CollectRequest();
+        collect.setRootArtifact(RepositoryUtils.toArtifact(module.getArtifact()));
+        collect.setRequestContext("project");
+        collect.setRepositories(module.getRemoteProjectRepositories());
+        for (org.apache.maven.model.Dependency d: module.getDependencies()) {
+            collect.addDependency(RepositoryUtils.toDependency(d, stereotypes));
+        }
+        DependencyManagement depMgmt = module.getDependencyManagement();
+        if (depMgmt!=null) {
+            for (org.apache.maven.model.Dependency d: depMgmt.getDependencies()) {
+                collect.addManagedDependency(RepositoryUtils.toDependency(d, stereotypes));
+            }
+        }
+        try {
+            return repositorySystem.collectDependencies(repositorySession, collect).getRoot();
+        } catch (DependencyCollectionException e) {
+            throw new MojoExecutionException("Cannot collect dependencies for "+module, e);
+        }
     }
 
     protected void finishMojo() throws MojoExecutionException {
+        if (metadataCache!=null) {
+            getLog().info("Project metadata cache "+metadataCache.getDir()+": "+
+                metadataCache.getHits()+" hits, "+metadataCache.getMisses()+" misses");
+        }
+        if (sharedProjectCache!=null) {
+            getLog().debug("Shared project cache: "+sharedProjectCache.size()+" projects, "+
+                sharedProjectCache.getHits()+" hits, "+sharedProjectCache.getMisses()+" misses");
+        }
+        if (metadataCache!=null && overridesFileCache.getHits()+overridesFileCache.getMisses()>0) {
+            getLog().info("Overrides cache "+overridesFileCache.getDir()+": "+
+                overridesFileCache.getHits()+" hits, "+overridesFileCache.getMisses()+" misses");
+        }
+        if (jarScanner!=null && metadataCache!=null) {
+            getLog().info("Jar license cache "+new File(metadataCache.getDir(), "jars")+": "+
+                jarScanner.getHits()+" hits, "+jarScanner.getMisses()+" misses");
+        }
+        getLog().debug("License codes remembered (for all executions in this JVM): "+
+            LicenseCodes.getMemoHits()+" hits, "+LicenseCodes.getMemoMisses()+" misses");
         if (outputWriter!=null) {
             try {
                 outputWriter.close();
@@ -209,24 +683,12 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
                 throw new MojoExecutionException("Error closing "+outputFilePath, e);
             }
         }
+        if (incremental && !upToDate && fingerprint!=null) {
+            // only once the output is successfully written
+            writeFingerprint();
+        }
     }
 
-    private DependencySelector newRootScopeDependencySelector(final DependencySelector base, final int depth) {
-        return new DependencySelector() {
-            public boolean selectDependency(org.eclipse.aether.graph.Dependency dependency) {
-                // use these root scopes
-                return includeScope(dependency.getScope()) && (!dependency.isOptional() || !excludeRootOptionalDependencies);
-            }
-            public DependencySelector deriveChildSelector(DependencyCollectionContext context) {
-                // scope is applied to root, thereafter we revert to the base scopes
-                if (depth<1)
-                    return newRootScopeDependencySelector( base.deriveChildSelector(context), depth+1 );
-                else
-                    return base.deriveChildSelector(context);
-            }
-        };
-    }
-    
     private void dump(String prefix, DependencyNode n) {
         getLog().debug(prefix+n+": "+n.getDependency()+" / "+n.getArtifact());
         for (DependencyNode nn: n.getChildren())
@@ -252,18 +714,156 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
         MavenProject p = projectByIdCache.get(projectId);
         if (p!=null) return p;
         
+        return recordProject(projectId, mda, buildProject(mda, mavenSession.getProjectBuildingRequest()));
+    }
+    
+    /** Loads the projects for all the given artifacts using {@link #loadThreads} threads,
+     * then records them (and any errors) in the order given, as if {@link #loadProject(org.apache.maven.artifact.Artifact)}
+     * had been called on each in turn. */
+    protected void loadProjects(List<org.apache.maven.artifact.Artifact> artifacts) throws MojoExecutionException {
+        final ProjectBuildingRequest buildingRequest = mavenSession.getProjectBuildingRequest();
+        Map<String,Future<ProjectLoad>> loads = new LinkedHashMap<String,Future<ProjectLoad>>();
+        ExecutorService executor = ThreadPools.newBoundedExecutor(loadThreads);
+        try {
+            for (final org.apache.maven.artifact.Artifact mda: artifacts) {
+                String projectId = Coords.of(mda).normal();
+                if (projectByIdCache.containsKey(projectId) || loads.containsKey(projectId)) continue;
+                loads.put(projectId, executor.submit(new Callable<ProjectLoad>() {
+                    public ProjectLoad call() {
+                        // requests are mutable so give each build its own
+                        return buildProject(mda, new DefaultProjectBuildingRequest(buildingRequest));
+                    }
+                }));
+            }
+            getLog().debug("Loading "+loads.size()+" projects using "+loadThreads+" threads");
+            for (org.apache.maven.artifact.Artifact mda: artifacts) {
+                String projectId = Coords.of(mda).normal();
+                if (projectByIdCache.containsKey(projectId)) continue;
+                recordProject(projectId, mda, loads.get(projectId).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted loading projects", e);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("Error loading projects: "+e.getCause(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /** Outcome of building a project, kept so that it can be recorded later. */
+    protected static class ProjectLoad {
+        final MavenProject project;
+        final ProjectBuildingException error;
+        ProjectLoad(MavenProject project, ProjectBuildingException error) {
+            this.project = project;
+            this.error = error;
+        }
+    }
+    
+    /** Builds the project without updating any of our in-memory caches, so can be run concurrently;
+     * uses the {@link #sharedProjectCache} and the {@link #metadataCache} if there are such. */
+    protected ProjectLoad buildProject(final org.apache.maven.artifact.Artifact mda, final ProjectBuildingRequest buildingRequest) {
+        if (sharedProjectCache==null) return buildProjectUncached(mda, buildingRequest);
+        String key = getSharedProjectCacheKey(mda, buildingRequest);
+        ProjectLoad result = sharedProjectCache.get(key, new Callable<ProjectLoad>() {
+            public ProjectLoad call() {
+                return buildProjectUncached(mda, buildingRequest);
+            }
+        });
+        // a failure may be particular to this module (e.g. a repository being unavailable) so is not shared;
+        // other modules will try again (and only this failed load is removed, not one another module has since put there)
+        if (result.error!=null || result.project==null) sharedProjectCache.remove(key, result);
+        return result;
+    }
+    
+    /** The key for a project in the {@link #sharedProjectCache}: its coordinates, and the repositories and profiles
+     * of the request, as these differ between modules and can change what is built. */
+    protected String getSharedProjectCacheKey(org.apache.maven.artifact.Artifact mda, ProjectBuildingRequest buildingRequest) {
+        StringBuilder result = new StringBuilder(Coords.of(mda).normal());
+        if (buildingRequest!=null) {
+            result.append(" repos=");
+            if (buildingRequest.getRemoteRepositories()!=null) {
+                for (ArtifactRepository r: buildingRequest.getRemoteRepositories()) result.append(r.getId()).append("=").append(r.getUrl()).append(",");
+            }
+            result.append(" profiles=").append(buildingRequest.getActiveProfileIds());
+        }
+        return result.toString();
+    }
+    
+    /** Builds the project, keeping only its {@link ProjectMetadata}: what maven builds holds the full model,
+     * its parents and their models, and much else the reports never read, so it is replaced at once by a minimal project. */
+    protected ProjectLoad buildProjectUncached(org.apache.maven.artifact.Artifact mda, ProjectBuildingRequest buildingRequest) {
+        Coords coords = Coords.of(mda);
+        String checksum = null;
+        if (metadataCache!=null) {
+            checksum = ProjectMetadataCache.checksumOfPomAndParents(mavenSession.getRepositorySession(), coords);
+            ProjectMetadata cached = metadataCache.get(coords, checksum);
+            if (cached!=null) {
+                getLog().debug("Using cached metadata for "+mda);
+                return new ProjectLoad(cached.toProject(artifactHandler), null);
+            }
+        }
+        ProjectMetadata metadata;
         try {
-            getLog().debug("Loading project for "+mda);
-            ProjectBuildingResult res = projectBuilder.build(mda, true, mavenSession.getProjectBuildingRequest());
-            p = res.getProject();
+            if (pomReader!=null) {
+                getLog().debug("Reading POMs for "+mda);
+                try {
+                    metadata = pomReader.read(coords.groupId, coords.artifactId, coords.baseVersion);
+                } catch (IOException e) {
+                    throw new ProjectBuildingException(coords.normal(), "Unable to read POMs for "+mda+": "+e.getMessage(), e);
+                }
+            } else {
+                getLog().debug("Loading project for "+mda);
+                ProjectBuildingResult res = projectBuilder.build(mda, true, buildingRequest);
+                metadata = res.getProject()==null ? null : ProjectMetadata.of(res.getProject());
+            }
         } catch (ProjectBuildingException e) {
-
             if (e.getResults()!=null && e.getResults().size()==1) {
-                getLog().warn("Error loading maven project/model for "+mda+" (but got a result so ignoring): "+e);
-                p = e.getResults().get(0).getProject();
+                MavenProject partial = e.getResults().get(0).getProject();
+                return new ProjectLoad(partial==null ? null : ProjectMetadata.of(partial).toProject(artifactHandler), e);
+            }
+            return new ProjectLoad(null, e);
+        }
+        if (metadata==null) return new ProjectLoad(null, null);
+        ProjectLoad result = new ProjectLoad(metadata.toProject(artifactHandler), null);
+        if (metadataCache!=null) {
+            // poms should now be local if they weren't before
+            if (checksum==null) checksum = ProjectMetadataCache.checksumOfPomAndParents(mavenSession.getRepositorySession(), coords);
+            if (checksum!=null) {
+                try {
+                    metadataCache.put(coords, checksum, metadata);
+                } catch (IOException e) {
+                    getLog().warn("Unable to cache metadata for "+mda+" in "+metadataCache.getDir()+": "+e);
+                }
+            }
+        }
+        return result;
+    }
+    
+    /** Returns the POM for the given coordinates, downloading it from the project's repositories if necessary. */
+    protected File resolvePomFile(String groupId, String artifactId, String version) throws IOException {
+        RepositorySystemSession session = mavenSession.getRepositorySession();
+        File result = MavenUtil.findLocalPom(session, groupId, artifactId, version);
+        if (result!=null) return result;
+        try {
+            return repositorySystem.resolveArtifact(session, new ArtifactRequest(
+                    new org.eclipse.aether.artifact.DefaultArtifact(groupId, artifactId, "", "pom", version), 
+                    project.getRemoteProjectRepositories(), null))
+                .getArtifact().getFile();
+        } catch (ArtifactResolutionException e) {
+            throw new IOException("Unable to resolve POM for "+groupId+":"+artifactId+":"+version+": "+e.getMessage(), e);
+        }
+    }
+    
+    protected MavenProject recordProject(String projectId, org.apache.maven.artifact.Artifact mda, ProjectLoad load) {
+        MavenProject p = load.project;
+        if (load.error!=null) {
+            if (load.error.getResults()!=null && load.error.getResults().size()==1) {
+                getLog().warn("Error loading maven project/model for "+mda+" (but got a result so ignoring): "+load.error);
             } else {
-                getLog().error("Errors loading maven project/model for "+mda+": "+e);
-                addError(projectId, e);
+                getLog().error("Errors loading maven project/model for "+mda+": "+load.error);
+                addError(projectId, load.error);
                 return null;
             }
         }
@@ -276,36 +876,109 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
         return p;
     }
     
-    protected void collectDeps(DependencyNode n0, MavenProject p, int depth) {
-        getLog().debug("Collecting dependencies of "+n0+"/"+p+" at depth "+depth);
-        depNodesByIdCache.put(Coords.of(n0).normal(), n0);
-        
-        if (n0.getDependency()!=null) {
-            if (n0.getDependency().isOptional() && (depth>1 || excludeRootOptionalDependencies)) {
-                getLog().warn("Optional dependency found in dependency tree: "+n0);
-                return;
+    /** Walks the graph from the given node, depth first, recording each node in the {@link #graph}
+     * and loading (or queueing to load) its project; uses an explicit stack rather than recursion, as graphs can be very deep. */
+    protected void collectDeps(DependencyNode root, MavenProject rootProject, int rootDepth) {
+        Deque<CollectFrame> stack = new ArrayDeque<CollectFrame>();
+        stack.push(new CollectFrame(root, rootProject, rootDepth, null));
+        while (!stack.isEmpty()) {
+            CollectFrame f = stack.pop();
+            DependencyNode n0 = f.node;
+            MavenProject p = f.project;
+            int depth = f.depth;
+            Coords c0 = Coords.of(n0);
+            if (f.parent!=null) graph.addParent(c0, f.parent);
+            
+            getLog().debug("Collecting dependencies of "+n0+"/"+p+" at depth "+depth);
+            graph.addNode(c0, n0);
+            
+            if (n0.getDependency()!=null) {
+                if (n0.getDependency().isOptional() && (depth>1 || excludeRootOptionalDependencies)) {
+                    getLog().warn("Optional dependency found in dependency tree: "+n0);
+                    continue;
+                }
+                if (!includeScope(n0.getDependency().getScope())) {
+                    getLog().debug("Skipping "+n0.getDependency().getScope()+" dependency: "+n0);
+                    continue;
+                }
+            }
+            
+            DefaultArtifact n0art = newMavenArtifact(n0.getArtifact());
+            if (p==null && n0.getArtifact()!=null) {
+                if (deferredProjectLoads!=null) deferredProjectLoads.add(n0art);
+                else p = loadProject(n0art);
             }
-            if (!includeScope(n0.getDependency().getScope())) {
-                getLog().debug("Skipping "+n0.getDependency().getScope()+" dependency: "+n0);
-                return;
+            
+            graph.include(c0, n0art);
+            if (currentReactorModule!=null && !currentReactorModule.normal().equals(c0.normal())) {
+                graph.addReactorModule(c0, currentReactorModule);
+            }
+            
+            if (depth>=this.maxDepth) continue;
+            
+            // pushed in reverse so that they are visited in order
+            List<DependencyNode> children = n0.getChildren();
+            for (int i=children.size()-1; i>=0; i--) {
+                stack.push(new CollectFrame(children.get(i), null, depth+1, c0));
             }
         }
+    }
+    
+    /** A node still to be visited by {@link AbstractLicensingMojo#collectDeps(DependencyNode, MavenProject, int)}. */
+    private static class CollectFrame {
+        final DependencyNode node;
+        final MavenProject project;
+        final int depth;
+        final Coords parent;
+        CollectFrame(DependencyNode node, MavenProject project, int depth, Coords parent) {
+            this.node = node;
+            this.project = project;
+            this.depth = depth;
+            this.parent = parent;
+        }
+    }
 
-        DefaultArtifact n0art = newMavenArtifact(n0.getArtifact());
-        if (p==null && n0.getArtifact()!=null) p = loadProject(n0art);
-        
-        includedBaseArtifactsCoordsToProject.put(Coords.of(n0).baseArtifact(), Coords.of(n0).normal());
-        includedProjects.add(Coords.of(n0).normal());
-        includedArtifactsUnversionedToBaseArtifactCoords.put(Coords.of(n0).unversionedArtifact(), Coords.of(n0).baseArtifact());
-        includedProjectsUnversionedToVersioned.put(Coords.of(n0).unversioned(), Coords.of(n0).normal());
-        projectArtifacts.put(Coords.of(n0).normal(), n0art);
-        
-        if (depth>=this.maxDepth) return;
-        
-        for (DependencyNode n: n0.getChildren()) {
-            projectToDependencyGraphParent.put(Coords.of(n).normal(), Coords.of(n0).normal());
-            collectDeps(n, null, depth+1);
+    /** The year of the most recent release of the project, as used in copyright lines, or -1 if not known;
+     * the date of its artifacts or else its POM, or the current year for the projects being audited. */
+    protected int releaseYearOf(MavenProject p, String projectId) {
+        if (snapshot!=null) {
+            Integer year = snapshot.releaseYears.get(projectId);
+            return year==null ? -1 : year;
         }
+        int releaseYear = -1;
+        Collection<org.apache.maven.artifact.Artifact> arts;
+        if (p.getArtifact()!=null && p.getArtifact().getFile()!=null) {
+            arts = Collections.singleton(p.getArtifact());
+        } else {
+            arts = graph.getArtifacts(Coords.of(p).normal());
+            if (arts==null || arts.isEmpty()) {
+                arts = p.getArtifacts();
+            }
+        }
+        // file date is not necessarily a valid indicator; often it is when the artifact was downloaded;
+        // TODO should really be consulting the upstream for release date
+        for (org.apache.maven.artifact.Artifact art: arts) {
+            if (art.getFile()!=null && art.getFile().exists()) {
+                releaseYear = Math.max(releaseYear, yearOf(art.getFile()));
+            }
+        }
+        if (releaseYear == -1 && isRoot(projectId)) {
+            // force current year for project in focus if not available
+            releaseYear = Calendar.getInstance().get(Calendar.YEAR);
+        }
+        if (releaseYear == -1 && collectOnly) {
+            // artifacts not resolved so fall back to the pom; only then, so that otherwise the output is as it was
+            File pom = p.getFile();
+            if (pom==null) pom = MavenUtil.findLocalPom(mavenSession.getRepositorySession(), p.getGroupId(), p.getArtifactId(), p.getVersion());
+            if (pom!=null && pom.exists()) releaseYear = yearOf(pom);
+        }
+        return releaseYear;
+    }
+
+    private static int yearOf(File f) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(new Date(f.lastModified()));
+        return calendar.get(Calendar.YEAR);
     }
 
     protected boolean includeScope(String scope) {
@@ -314,7 +987,7 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
     }
 
     protected boolean isRoot(String id) {
-        return project!=null && Coords.of(project).normal().equals(id);
+        return (project!=null && Coords.of(project).normal().equals(id)) || reactorProjects.contains(id);
     }
     
     static DetailLevel best(Set<DependencyDetail> set) {
@@ -470,7 +1143,9 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
         if (l!=null) {
             if (isNonEmpty(l.getName())) {
                 result.put("name", l.getName());
-                String code = LicenseCodes.getLicenseCode(l.getName());
+            }
+            if (isNonEmpty(l.getName()) || isNonEmpty(l.getUrl())) {
+                String code = LicenseCodes.getLicenseCode(l);
                 if (isNonEmpty(code)) result.put("code", code);
             }
             if (isNonEmpty(l.getUrl())) {
@@ -545,7 +1220,7 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
                 if (isNonEmpty(l.getComments()))
                     // if any have comment then disallow
                     return null;
-                String code = LicenseCodes.getLicenseCode(l.getName());
+                String code = LicenseCodes.getLicenseCode(l);
                 if (isNonEmpty(code)) codes.add(code);
             }
             if (codes.isEmpty()) return null;
@@ -561,15 +1236,84 @@ public abstract class AbstractLicensingMojo extends AbstractMojo {
         li = licenses.iterator();
         final License next = li.next();
         if (null != next) {
-            String code = LicenseCodes.getLicenseCode(next.getName());
+            String code = LicenseCodes.getLicenseCode(next);
             if (isNonEmpty(code)) return code;
         }
         return null;
     }
     
+    /** The licenses of the project, from overrides or its POM or, if neither gives any, what its artifacts say (if {@link #scanJars}). */
     List<License> getLicenses(MavenProject p, String idIfProjectMightBeNull) {
-        if (p!=null) return overrides.getLicense(p);
-        return overrides.getLicense(idIfProjectMightBeNull);
+        List<License> result = p!=null ? overrides.getLicense(p) : overrides.getLicense(idIfProjectMightBeNull);
+        if ((result==null || result.isEmpty()) && p!=null && !jarLicenses.isEmpty()) {
+            JarLicenseInfo jar = jarLicenses.get(Coords.of(p).normal());
+            if (jar!=null) {
+                List<License> fromJar = jar.getLicenses(p.getGroupId(), p.getArtifactId());
+                if (!fromJar.isEmpty()) return fromJar;
+            }
+        }
+        return result;
+    }
+    
+    /** The code of the license which the LICENSE files in the project's artifacts are identified as (if {@link #scanJars}),
+     * or null if there are none, or they are not all identified as the same license. */
+    protected String getLicenseCodeFromTexts(String projectId) {
+        JarLicenseInfo jar = jarLicenses.get(projectId);
+        if (jar==null || jar.licenseTexts.isEmpty()) return null;
+        String result = null;
+        for (Map.Entry<String,String> text: jar.licenseTexts.entrySet()) {
+            LicenseTextMatcher.Match m = LicenseTextMatcher.get().match(text.getValue());
+            if (getLog().isDebugEnabled()) getLog().debug("License text "+text.getKey()+" in "+projectId+" identified as "+m);
+            if (m==null || (result!=null && !result.equals(m.code))) return null;
+            result = m.code;
+        }
+        return result;
+    }
+    
+    /** Reads the LICENSE and NOTICE files, manifest and embedded POMs of the artifacts of all the projects loaded,
+     * using {@link #scanThreads} threads, into {@link #jarLicenses}. */
+    protected void scanJars() throws MojoExecutionException {
+        Map<String,List<File>> jarsByProject = new LinkedHashMap<String,List<File>>();
+        List<File> jars = new ArrayList<File>();
+        for (String id: projectByIdCache.keySet()) {
+            // the projects being audited aren't built yet
+            if (isRoot(id)) continue;
+            List<org.apache.maven.artifact.Artifact> arts = graph.getArtifacts(id);
+            if (arts==null) continue;
+            for (org.apache.maven.artifact.Artifact art: arts) {
+                File f = art.getFile();
+                if (f!=null && f.isFile() && f.getName().endsWith(".jar")) {
+                    if (!jarsByProject.containsKey(id)) jarsByProject.put(id, new ArrayList<File>());
+                    jarsByProject.get(id).add(f);
+                    jars.add(f);
+                }
+            }
+        }
+        if (jars.isEmpty()) {
+            if (collectOnly) getLog().warn("Not scanning jars as artifacts are not resolved with collectOnly");
+            return;
+        }
+        
+        getLog().debug("Scanning "+jars.size()+" jars using "+scanThreads+" threads");
+        Map<File,IOException> errors = new LinkedHashMap<File,IOException>();
+        Map<File,JarLicenseInfo> infos;
+        try {
+            infos = jarScanner.scanAll(jars, scanThreads, errors);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted scanning jars", e);
+        }
+        for (Map.Entry<File,IOException> e: errors.entrySet()) {
+            getLog().warn("Unable to scan "+e.getKey()+" for license information: "+e.getValue());
+        }
+        for (Map.Entry<String,List<File>> project: jarsByProject.entrySet()) {
+            JarLicenseInfo result = null;
+            for (File f: project.getValue()) {
+                JarLicenseInfo info = infos.get(f);
+                if (info!=null) result = result==null ? info : result.mergedWith(info);
+            }
+            if (result!=null && !result.isEmpty()) jarLicenses.put(project.getKey(), result);
+        }
     }
 
     protected int getForcedReleaseYear() {
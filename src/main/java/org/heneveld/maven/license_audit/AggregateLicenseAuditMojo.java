@@ -0,0 +1,19 @@
+package org.heneveld.maven.license_audit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+
+/** As the <code>report</code> goal but run once for the whole reactor,
+ * resolving the dependencies of every module and writing a single report,
+ * which notes for each dependency the modules which pull it in. */
+@Mojo( name = "aggregate", defaultPhase = LifecyclePhase.COMPILE, aggregator = true )
+public class AggregateLicenseAuditMojo extends LicenseAuditMojo {
+
+    @Override
+    protected void setupMojo() throws MojoExecutionException {
+        aggregate = true;
+        super.setupMojo();
+    }
+
+}
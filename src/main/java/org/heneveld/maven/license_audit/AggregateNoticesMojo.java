@@ -0,0 +1,18 @@
+package org.heneveld.maven.license_audit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+
+/** As the <code>notices</code> goal but run once for the whole reactor,
+ * giving the notices for the dependencies of all modules. */
+@Mojo( name = "aggregate-notices", defaultPhase = LifecyclePhase.COMPILE, aggregator = true )
+public class AggregateNoticesMojo extends GenerateNoticesMojo {
+
+    @Override
+    protected void setupMojo() throws MojoExecutionException {
+        aggregate = true;
+        super.setupMojo();
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.heneveld.maven.license_audit;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.heneveld.maven.license_audit.util.OverridesIndex;
+import org.heneveld.maven.license_audit.util.ProjectsOverrides;
+
+/** Builds an index file from one or more overrides catalogs (YAML, as for <code>overridesFile</code>),
+ * for use as the <code>overridesIndex</code> of the other goals: it is memory-mapped rather than parsed,
+ * so a large catalog costs builds nothing to load and can be shared by many builds on a machine. */
+@Mojo( name = "overrides-index", requiresProject = false )
+public class BuildOverridesIndexMojo extends AbstractMojo {
+
+    @Parameter( defaultValue = "", property = "catalogs", required = true )
+    protected String catalogs;
+
+    @Parameter( defaultValue = "", property = "indexFile", required = true )
+    protected String indexFile;
+
+    public void execute() throws MojoExecutionException {
+        ProjectsOverrides overrides = new ProjectsOverrides();
+        String cf = catalogs;
+        // as for extrasFiles, allow ; everywhere; on unix also :
+        if (!File.pathSeparator.equals(";")) cf=cf.replace(File.pathSeparator, ";");
+        for (String f: cf.split(";")) {
+            if (f.trim().isEmpty()) continue;
+            getLog().debug("Reading overrides catalog: "+f);
+            try {
+                FileReader fr = new FileReader(f.trim());
+                try {
+                    // later catalogs are merged over earlier ones, and each is validated
+                    overrides.addFromYaml(fr);
+                } finally {
+                    fr.close();
+                }
+            } catch (Exception e) {
+                throw new MojoExecutionException("Error reading "+f+": "+e, e);
+            }
+        }
+        try {
+            OverridesIndex.write(overrides, new File(indexFile));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing overrides index "+indexFile+": "+e, e);
+        }
+        getLog().info("Wrote overrides index "+indexFile+" with "+overrides.getProjects().size()+" entries");
+    }
+
+}
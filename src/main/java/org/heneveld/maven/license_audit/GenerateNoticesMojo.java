@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -22,6 +23,8 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.heneveld.maven.license_audit.util.Coords;
+import org.heneveld.maven.license_audit.util.Fingerprint;
+import org.heneveld.maven.license_audit.util.JarLicenseInfo;
 import org.heneveld.maven.license_audit.util.LicenseCodes;
 import org.heneveld.maven.license_audit.util.MavenUtil;
 import org.heneveld.maven.license_audit.util.ProjectsOverrides;
@@ -38,6 +41,20 @@ public class GenerateNoticesMojo extends AbstractLicensingMojo {
     protected Map<String,Map<String,Object>> yamlFull = new LinkedHashMap<>();
     protected Map<String,Object> yamlCurrent = null;
 
+    @Override
+    protected void addParametersToFingerprint(Fingerprint f) {
+        super.addParametersToFingerprint(f);
+        f.add("outputYaml", outputYaml);
+    }
+    
+    @Override
+    protected Set<ReportData> getReportDataNeeded() throws MojoExecutionException {
+        // names, urls, organizations and licenses of the projects, but not how they depend on each other
+        Set<ReportData> result = super.getReportDataNeeded();
+        result.retainAll(EnumSet.of(ReportData.GRAPH, ReportData.PROJECTS, ReportData.LICENSES, ReportData.DETAILS));
+        return result;
+    }
+    
     @Override
     protected void generateOutput() throws MojoExecutionException {
         // load extras
@@ -201,9 +218,11 @@ public class GenerateNoticesMojo extends AbstractLicensingMojo {
             Set<String> notices = new TreeSet<>();
             notices.addAll(getFields(id, projects, "notice"));
             notices.addAll(getFields(id, projects, "notices"));
+            Set<String> jarNotices = notices.isEmpty() ? getJarNotices(projects) : Collections.<String>emptySet();
+            notices.addAll(jarNotices);
             notices.addAll(getFields(id, projects, "copyright_by").stream().map(s -> s.toLowerCase().startsWith("copyright") || s.toLowerCase().startsWith("(c)") ? s : "Copyright (c) "+s).collect(Collectors.toList()));
             if (!notices.isEmpty()) {
-                onProjectDetailIfNonEmptyPreferInline("Notice", notices, set -> join(set, "\n    "));
+                onProjectDetailIfNonEmptyPreferInline("Notice", notices, set -> formatNotices(set, jarNotices));
             }
             
             if (!outputYaml) output("");
@@ -334,7 +353,7 @@ public class GenerateNoticesMojo extends AbstractLicensingMojo {
         Set<Map<String,String>> result = new LinkedHashSet<Map<String,String>>();
         for (Object p: projects) {
             List<License> lics;
-            if (p instanceof MavenProject) lics = overrides.getLicense((MavenProject)p);
+            if (p instanceof MavenProject) lics = getLicenses((MavenProject)p, null);
             else {
                 lics = ProjectsOverrides.parseAsLicenses( ((Map<?,?>)p).get("license") );
                 // if licenses left out of maps, don't generate error yet
@@ -375,6 +394,21 @@ public class GenerateNoticesMojo extends AbstractLicensingMojo {
         return result;
     }
 
+    /** The text of NOTICE files in the artifacts of the given projects, if {@link #scanJars}. */
+    protected Set<String> getJarNotices(Set<Object> projects) {
+        Set<String> result = new TreeSet<String>();
+        for (Object p: projects) {
+            if (!(p instanceof MavenProject)) continue;
+            JarLicenseInfo jar = jarLicenses.get(Coords.of((MavenProject)p).normal());
+            if (jar==null) continue;
+            for (String notice: jar.noticeTexts.values()) {
+                notice = notice.replace("\r\n", "\n").trim();
+                if (!notice.isEmpty()) result.add(notice);
+            }
+        }
+        return result;
+    }
+    
     protected Set<String> getFields(String id, Set<Object> projects, String field) {
         return getFields(id, projects, field, (p)->null);
     }
@@ -468,6 +502,12 @@ public class GenerateNoticesMojo extends AbstractLicensingMojo {
         return result2;
     }
 
+    /** Joins notices for the text output; those from jars' NOTICE files are usually several lines so have their lines
+     * indented to keep them under the project, whereas notices from overrides and extras are output as given. */
+    static String formatNotices(Collection<String> notices, Set<String> fromJars) {
+        return join(notices.stream().map(n -> fromJars.contains(n) ? n.replace("\n", "\n    ") : n).collect(Collectors.toList()), "\n    ");
+    }
+
     static String longestRelevantUrl(String groupId, Iterable<String> urls) {
         String commonPrefix = null;
         for (String url: urls) {
@@ -1,10 +1,11 @@
 package org.heneveld.maven.license_audit;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collections;
-import java.util.Date;
+import java.util.Deque;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -12,7 +13,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.License;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -20,8 +20,9 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
-import org.eclipse.aether.graph.DependencyNode;
 import org.heneveld.maven.license_audit.util.Coords;
+import org.heneveld.maven.license_audit.util.Fingerprint;
+import org.heneveld.maven.license_audit.util.GraphNode;
 import org.heneveld.maven.license_audit.util.LicenseCodes;
 import org.heneveld.maven.license_audit.util.ProjectsOverrides;
 import org.heneveld.maven.license_audit.util.SimpleMultiMap;
@@ -45,31 +46,65 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
 
     @Parameter( defaultValue = "false", property = "suppressLicenseInfo", required = true )
     private boolean suppressLicenseInfo;
+    
+    private AbstractReport report = null;
 
     /** Collects the data reported so we can report it. */
     @VisibleForTesting
     Map<String,Map<String,String>> reportedData = null;
     
-    protected void generateOutput() throws MojoExecutionException {
-        if ("tree".equalsIgnoreCase(format)) {
-            new TreeReport().run();
-        } else if ("summary".equalsIgnoreCase(format)) {
-            new SummaryReport().run();
-        } else if ("report".equalsIgnoreCase(format)) {
-            new ReportReport(false).run();
-        } else if ("sorted-report".equalsIgnoreCase(format)) {
-            new ReportReport(true).run();
-        } else if ("list".equalsIgnoreCase(format)) {
-            new ListReport(false).run();
-        } else if ("sorted-list".equalsIgnoreCase(format)) {
-            new ListReport(true).run();
-        } else if ("csv".equalsIgnoreCase(format)) {
-            new CsvReport(false).run();
-        } else if ("sorted-csv".equalsIgnoreCase(format)) {
-            new CsvReport(true).run();
-        } else {
-            throw new MojoExecutionException("Unknown format (use 'tree', 'list', 'csv', or 'summary'): "+format);
+    @Override
+    protected void addParametersToFingerprint(Fingerprint f) {
+        super.addParametersToFingerprint(f);
+        f.add("format", format);
+        f.add("suppressExcludedDependencies", suppressExcludedDependencies);
+        f.add("listUnusedNestedOptionalDependencies", listUnusedNestedOptionalDependencies);
+        f.add("listDependencyIdOnly", listDependencyIdOnly);
+        f.add("suppressLicenseInfo", suppressLicenseInfo);
+    }
+    
+    /** The report for the {@link #format}, created when first needed. */
+    protected AbstractReport getReport() throws MojoExecutionException {
+        if (report==null) {
+            if ("tree".equalsIgnoreCase(format)) {
+                report = new TreeReport();
+            } else if ("summary".equalsIgnoreCase(format)) {
+                report = new SummaryReport();
+            } else if ("report".equalsIgnoreCase(format)) {
+                report = new ReportReport(false);
+            } else if ("sorted-report".equalsIgnoreCase(format)) {
+                report = new ReportReport(true);
+            } else if ("list".equalsIgnoreCase(format)) {
+                report = new ListReport(false);
+            } else if ("sorted-list".equalsIgnoreCase(format)) {
+                report = new ListReport(true);
+            } else if ("csv".equalsIgnoreCase(format)) {
+                report = new CsvReport(false);
+            } else if ("sorted-csv".equalsIgnoreCase(format)) {
+                report = new CsvReport(true);
+            } else {
+                throw new MojoExecutionException("Unknown format (use 'tree', 'list', 'csv', or 'summary'): "+format);
+            }
         }
+        return report;
+    }
+    
+    @Override
+    protected Set<ReportData> getReportDataNeeded() throws MojoExecutionException {
+        Set<ReportData> result = super.getReportDataNeeded();
+        result.retainAll(getReport().getDataNeeded());
+        return result;
+    }
+    
+    protected void generateOutput() throws MojoExecutionException {
+        getReport().run();
+    }
+
+    /** The reactor modules which pull in the given project, one per line, when aggregating. */
+    protected String reactorModulesString(String id) {
+        List<String> modules = graph.getReactorModules(id);
+        if (modules==null || modules.isEmpty()) return "(none)";
+        return join(modules, "\n");
     }
 
     protected enum DetailLevel { OMITTED, EXCLUDE_FROM_SUMMARY, INCLUDE_IN_SUMMARY_BUT_NOT_USED_OR_EXPANDED, INCLUDE_IN_SUMMARY_EXPANDED_ELSEWHERE, INCLUDE_WITH_DETAIL }
@@ -93,6 +128,23 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
         Set<String> ids;
         boolean doingExtras = false;
         ProjectsOverrides extras = null;
+        Set<ReportData> dataNeeded;
+        
+        /** What this report uses; subclasses should remove anything they don't.
+         * This is all of it, except license and copyright info if {@link LicenseAuditMojo#suppressLicenseInfo}. */
+        protected Set<ReportData> getDataNeeded() {
+            Set<ReportData> result = EnumSet.allOf(ReportData.class);
+            if (suppressLicenseInfo) {
+                result.remove(ReportData.LICENSES);
+                result.remove(ReportData.COPYRIGHT);
+            }
+            return result;
+        }
+        
+        protected boolean needs(ReportData data) {
+            if (dataNeeded==null) dataNeeded = getDataNeeded();
+            return dataNeeded.contains(data);
+        }
         
         public void setup() throws MojoExecutionException {
             ids = new LinkedHashSet<String>();
@@ -100,6 +152,8 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
                 getLog().debug("Report collected projects for: "+ids);
                 getLog().debug("Report collected project error reports for: "+projectErrors.keySet());
                 ids.addAll(projectByIdCache.keySet());
+                // if projects weren't loaded the graph says what is included
+                if (!needs(ReportData.PROJECTS)) ids.addAll(graph.getIncludedProjects());
                 ids.addAll(projectErrors.keySet());
             }
             
@@ -118,10 +172,8 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
             addProjectEntry("Organization", organizationString(data));
             // TODO contributors not yet elegantly formatted when from overrides (and overrides not used above)
             addProjectEntry("Contributors", toStringPoorMans(data.get("contributors")));
-            if (!suppressLicenseInfo) {
-                addLicenseInfoEntries(getLicenses(projectByIdCache.get(projectId), projectId));
-                addCopyrightInfo(projectByIdCache.get(projectId), projectId);
-            }
+            if (needs(ReportData.LICENSES)) addLicenseInfoEntries(getLicenses(projectByIdCache.get(projectId), projectId));
+            if (needs(ReportData.COPYRIGHT)) addCopyrightInfo(projectByIdCache.get(projectId), projectId);
             // any other verbose info?
             endProject();
         }
@@ -152,7 +204,7 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
             MavenProject p = getProject(id);
             startProject(id, p);
             
-            Set<DependencyNode> dn0 = depNodesByIdCache.get(id);
+            List<GraphNode> dn0 = graph.getNodes(id);
             if (dn0==null) addError(id, "No dependency node in tree; should this be included?");
             
             Object err = projectErrors.get(id);
@@ -165,42 +217,46 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
                 }
                 addProjectEntry("Name", p.getName());
                 addProjectEntry("URL",  overrides.getUrl(p));
-                if (!suppressLicenseInfo) {
-                    addLicenseInfoEntries(getLicenses(p, id));
-                    addCopyrightInfo(p, id);
-                }
-                addVerboseEntries(p);
+                if (needs(ReportData.LICENSES)) addLicenseInfoEntries(getLicenses(p, id));
+                if (needs(ReportData.COPYRIGHT)) addCopyrightInfo(p, id);
+                if (needs(ReportData.DETAILS)) addVerboseEntries(p);
                 
-                Map<String,DependencyNode> depsInGraphHere = new LinkedHashMap<String,DependencyNode>();
+                Map<String,GraphNode> depsInGraphHere = new LinkedHashMap<String,GraphNode>();
                 Set<String> artifactsIncluded = new LinkedHashSet<String>();
                 if (dn0!=null) {
-                    for (DependencyNode dn1: dn0) {
+                    for (GraphNode dn1: dn0) {
                         String artifact = 
-                            (dn1.getArtifact()==null ? "unknown" : 
-                                dn1.getArtifact().getExtension()+
-                                (isNonEmpty(dn1.getArtifact().getClassifier()) ? ":"+dn1.getArtifact().getClassifier() : "")) 
+                            dn1.coords.packagingExtensionType+
+                                (isNonEmpty(dn1.coords.classifier) ? ":"+dn1.coords.classifier : "") 
                                 + " "
-                                + "("+(dn1.getDependency()==null ? "unknown" : dn1.getDependency().getScope())+")";
+                                + "("+(dn1.scope==null ? "unknown" : dn1.scope)+")";
                         artifactsIncluded.add(artifact);
-                        for (DependencyNode dn2: dn1.getChildren()) {
-                            depsInGraphHere.put(Coords.of(dn2).baseArtifact(), dn2);
+                        for (GraphNode dn2: dn1.getChildren()) {
+                            depsInGraphHere.put(dn2.coords.baseArtifact(), dn2);
                         }
                     }
                     getLog().debug("Dependencies of "+id+": in graph: "+dn0+"->"+depsInGraphHere);
                 }
                 
                 addProjectEntry("Artifacts Included", isRoot(id) ? "(root)" : isExtra(id) ? "(extra)" : join(artifactsIncluded, "\n"));
+                if (aggregate && !isRoot(id)) {
+                    addProjectEntry("Reactor Modules", reactorModulesString(id));
+                }
                 
                 String dep;
                 List<Dependency> deps = p.getDependencies();
                 
-                if (deps==null || deps.isEmpty()) {
+                if (!needs(ReportData.DEPENDENCIES)) {
+                    dep = null;
+                    
+                } else if (deps==null || deps.isEmpty()) {
                     dep = "(none)";
                     
                 } else {
                     List<String> depsLine = new ArrayList<String>();
                     for (Dependency d: deps) {
-                        DependencyNode nodeInGraphHere = depsInGraphHere.remove(Coords.of(d).baseArtifact());
+                        Coords dc = Coords.of(d);
+                        GraphNode nodeInGraphHere = depsInGraphHere.remove(dc.baseArtifact());
                         boolean excludedScope = !includeScope(d.getScope());
                         String reportInclusionMessage;
                         DetailLevel level = null;
@@ -209,7 +265,7 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
                                 reportInclusionMessage = "used but excluded from report";
                                 level = DetailLevel.EXCLUDE_FROM_SUMMARY;
                             } else {
-                                if (includedBaseArtifactsCoordsToProject.containsKey(Coords.of(d).baseArtifact())) {
+                                if (graph.isIncludedBaseArtifact(dc.baseArtifact())) {
                                     reportInclusionMessage = "included"+getInclusionMessageForDetailFromThisNode();
                                     level = DetailLevel.INCLUDE_WITH_DETAIL;
                                 } else {
@@ -222,14 +278,14 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
                             reportInclusionMessage = "excluded from report scope";
                         } else {
                             level = DetailLevel.INCLUDE_IN_SUMMARY_EXPANDED_ELSEWHERE;
-                            if (includedBaseArtifactsCoordsToProject.containsKey(Coords.of(d).baseArtifact())) {
-                                reportInclusionMessage = "included"+getInclusionMessageForDetailElsewhere(Coords.of(d).normal());
-                            } else if (includedProjects.contains(Coords.of(d).normal())) reportInclusionMessage = "project included"+getInclusionMessageForDetailElsewhere(Coords.of(d).normal());
-                            else if (includedArtifactsUnversionedToBaseArtifactCoords.containsKey(Coords.of(d).unversionedArtifact())) 
-                                reportInclusionMessage = "version "+v(includedArtifactsUnversionedToBaseArtifactCoords.get(Coords.of(d).unversionedArtifact()))+" included"+getInclusionMessageForDetailElsewhere(
-                                    includedBaseArtifactsCoordsToProject.get(includedArtifactsUnversionedToBaseArtifactCoords.get(Coords.of(d).unversionedArtifact())));
-                            else if (includedProjectsUnversionedToVersioned.containsKey(Coords.of(d).unversioned())) 
-                                reportInclusionMessage = "version "+v(includedProjectsUnversionedToVersioned.get(Coords.of(d).unversioned()))+" included"+getInclusionMessageForDetailElsewhere(includedProjectsUnversionedToVersioned.get(Coords.of(d).unversioned()));
+                            if (graph.isIncludedBaseArtifact(dc.baseArtifact())) {
+                                reportInclusionMessage = "included"+getInclusionMessageForDetailElsewhere(dc.normal());
+                            } else if (graph.isIncludedProject(dc.normal())) reportInclusionMessage = "project included"+getInclusionMessageForDetailElsewhere(dc.normal());
+                            else if (graph.getIncludedBaseArtifact(dc.unversionedArtifact())!=null) 
+                                reportInclusionMessage = "version "+v(graph.getIncludedBaseArtifact(dc.unversionedArtifact()))+" included"+getInclusionMessageForDetailElsewhere(
+                                    graph.getProjectOfBaseArtifact(graph.getIncludedBaseArtifact(dc.unversionedArtifact())));
+                            else if (graph.getIncludedProject(dc.unversioned())!=null) 
+                                reportInclusionMessage = "version "+v(graph.getIncludedProject(dc.unversioned()))+" included"+getInclusionMessageForDetailElsewhere(graph.getIncludedProject(dc.unversioned()));
                             else {
                                 if (maxDepth == Integer.MAX_VALUE) {
                                     if ("compile".equals(d.getScope()) || "runtime".equals(d.getScope())) {
@@ -264,8 +320,8 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
                         }
                         
                         if (level != DetailLevel.OMITTED) {
-                            depsResult.put(Coords.of(d).normal(), new DependencyDetail(d.getScope(), d.isOptional(), level));
-                            depsLine.add(Coords.of(d).baseArtifact()+
+                            depsResult.put(dc.normal(), new DependencyDetail(d.getScope(), d.isOptional(), level));
+                            depsLine.add(dc.baseArtifact()+
                                 (listDependencyIdOnly ? "" :
                                 " ("+d.getScope()+
                                     (d.isOptional() ? ", optional" : "")+
@@ -273,11 +329,11 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
                         }
                     }
                     if (!depsInGraphHere.isEmpty()) {
-                        for (Map.Entry<String,DependencyNode> dd: depsInGraphHere.entrySet()) {
+                        for (Map.Entry<String,GraphNode> dd: depsInGraphHere.entrySet()) {
                             // shouldn't happen
-                            org.eclipse.aether.graph.Dependency d = dd.getValue().getDependency();
-                            depsLine.add(dd.getKey()+" ("+d.getScope()+", excluded from report because in graph but not on project)");
-                            depsResult.put(Coords.of(dd.getValue()).normal(), new DependencyDetail(d.getScope(), d.isOptional(), DetailLevel.EXCLUDE_FROM_SUMMARY));
+                            GraphNode d = dd.getValue();
+                            depsLine.add(dd.getKey()+" ("+d.scope+", excluded from report because in graph but not on project)");
+                            depsResult.put(d.coords.normal(), new DependencyDetail(d.scope, d.optional, DetailLevel.EXCLUDE_FROM_SUMMARY));
                         }
                     }
                     dep = "";
@@ -288,7 +344,7 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
                         dep += d;
                     }
                 }
-                addProjectEntry("Dependencies", dep);
+                if (dep!=null) addProjectEntry("Dependencies", dep);
             }
             
             endProject();
@@ -319,7 +375,8 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
         protected void addCompleteLicenseInfoEntries(List<License> lics) throws MojoExecutionException {
             String code = licensesCode(lics);
             
-            addProjectEntry("License Code", licensesCode(lics));
+            // if the licenses declared have no code, the license files in the artifacts might say
+            addProjectEntry("License Code", code!=null ? code : getLicenseCodeFromTexts(currentProject));
             addProjectEntry("License", licensesString(lics, true));
 
             // if code found or single license, extract simple info, preferring canonical (code) info
@@ -393,31 +450,8 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
                 }
                 result += " " + copyrightHolder;
 
-                long releaseYear = getForcedReleaseYear();
-                if (releaseYear==-1) {
-                    Set<Artifact> arts;
-                    if (p.getArtifact()!=null && p.getArtifact().getFile()!=null) {
-                        arts = Collections.singleton(p.getArtifact());
-                    } else {
-                        arts = projectArtifacts.get(Coords.of(p).normal());
-                        if (arts==null || arts.isEmpty()) {
-                            arts = p.getArtifacts();
-                        }
-                    }
-                    // file date is not necessarily a valid indicator; often it is when the artifact was downloaded;
-                    // TODO should really be consulting the upstream for release date
-                    for (Artifact art: arts) {
-                        if (art.getFile()!=null && art.getFile().exists()) {
-                            Calendar calendar = Calendar.getInstance();
-                            calendar.setTime(new Date(art.getFile().lastModified()));
-                            releaseYear = Math.max(releaseYear, calendar.get(Calendar.YEAR));
-                        }
-                    }
-                    if (releaseYear == -1 && projectId.equals(Coords.of(project).normal())) {
-                        // force current year for project in focus if not available
-                        releaseYear = Calendar.getInstance().get(Calendar.YEAR);
-                    }
-                }
+                int releaseYear = getForcedReleaseYear();
+                if (releaseYear==-1) releaseYear = releaseYearOf(p, projectId);
 
                 if (p.getInceptionYear()!=null && p.getInceptionYear().length()>0) {
                     result += " (" + p.getInceptionYear()+"-"+(releaseYear > 0 ? releaseYear : "")+")"; 
@@ -443,15 +477,25 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
         }
         
         protected void output(String line) throws MojoExecutionException {
+            output(null, 0, line);
+        }
+        
+        /** Outputs the line preceded by the first <code>indentLength</code> characters of <code>indent</code>,
+         * written directly rather than concatenated. */
+        protected void output(CharSequence indent, int indentLength, String line) throws MojoExecutionException {
             if (outputWriter!=null) {
                 try {
+                    if (indentLength>0) outputWriter.append(indent, 0, indentLength);
                     outputWriter.write(line);
                     outputWriter.write("\n");
                 } catch (IOException e) {
                     throw new MojoExecutionException("Error writing to "+outputFilePath, e);
                 }
             }
-            getLog().info(line);
+            if (getLog().isInfoEnabled()) {
+                if (indentLength>0) getLog().info(new StringBuilder(indentLength+line.length()).append(indent, 0, indentLength).append(line));
+                else getLog().info(line);
+            }
         }
     }
     
@@ -522,6 +566,17 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
         
         public ListReport(boolean isSorted) { super(isSorted); }
         
+        @Override
+        protected Set<ReportData> getDataNeeded() {
+            // only ids and license summaries are shown; projects are only needed for the latter
+            Set<ReportData> result = EnumSet.of(ReportData.GRAPH);
+            if (!suppressLicenseInfo) {
+                result.add(ReportData.PROJECTS);
+                result.add(ReportData.LICENSES);
+            }
+            return result;
+        }
+        
         @Override
         public void startProject(String id, MavenProject p) throws MojoExecutionException {
             super.startProject(id, p);
@@ -530,15 +585,16 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
             Set<Object> errs = projectErrors.get(id);
 
             // if we wanted to show where it was dragged in from
-//            Set<String> parentDN = projectToDependencyGraphParent.get(id);
-//            Set<DependencyNode> referencingDNs = depNodesByIdCache.get(id);
+//            List<String> parentDN = graph.getParents(id);
+//            List<DependencyNode> referencingDNs = graph.getNodes(id);
 
             List<License> lics = getLicenses(p, id);
             String licenseLine = (suppressLicenseInfo ? "" : ": "+((lics!=null && !lics.isEmpty()) || p!=null ? oneLine(licensesSummaryString(lics), "; ") : "<not loaded>"));
             
             output(id+
                 (errs==null || errs.isEmpty() ? "" : " (ERROR)")+
-                licenseLine);
+                licenseLine+
+                (aggregate && !isRoot(id) ? " [from "+reactorModulesString(id).replace("\n", ", ")+"]" : ""));
         }
         
         @Override
@@ -679,16 +735,31 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
         }
         
         Set<String> reportedProjects = new LinkedHashSet<String>();
-        String currentPrefix = "";
+        // grows and shrinks by linePrefix as we go deeper and come back out
+        final StringBuilder currentPrefix = new StringBuilder();
 
-        protected String prefixWithPlus() {
-            return currentPrefix.length() >= linePrefix.length() ? currentPrefix.substring(0, currentPrefix.length()-linePrefix.length()) + projectPrefix : currentPrefix;
+        /** Outputs the line with the current prefix, replacing its last level with the projectPrefix. */
+        protected void outputWithPlus(String line) throws MojoExecutionException {
+            if (currentPrefix.length() >= linePrefix.length()) {
+                output(currentPrefix, currentPrefix.length()-linePrefix.length(), projectPrefix + line);
+            } else {
+                output(currentPrefix, currentPrefix.length(), line);
+            }
+        }
+        
+        protected void outputIndented(String line) throws MojoExecutionException {
+            output(currentPrefix, currentPrefix.length(), line);
         }
         
         public void run() throws MojoExecutionException {
             setup();
             
             runProjectRecursively(Coords.of(project).normal(), project, 0, Collections.singleton(new DependencyDetail(null, false, DetailLevel.INCLUDE_WITH_DETAIL)));
+            for (String id: reactorProjects) {
+                if (!reportedProjects.contains(id)) {
+                    runProjectRecursively(id, getProject(id), 0, Collections.singleton(new DependencyDetail(null, false, DetailLevel.INCLUDE_WITH_DETAIL)));
+                }
+            }
 
             for (String id: ids) {
                 if (!reportedProjects.contains(id)) {
@@ -705,61 +776,101 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
         
         @Override
         protected void runExtraProject(String projectId, ProjectsOverrides extras) throws MojoExecutionException {
-            currentPrefix = "";
+            currentPrefix.setLength(0);
             showExtraProjectHeader(projectId, extras);
-            currentPrefix = "  ";
+            currentPrefix.append("  ");
             super.runExtraProject(projectId, extras);
         }
         protected void showExtraProjectHeader(String id, ProjectsOverrides extras) throws MojoExecutionException {
             output(id);
         }
 
+        /** Reports the project and, depth first, the dependencies to be detailed under it;
+         * uses an explicit stack rather than recursion, as graphs can be very deep. */
         protected void runProjectRecursively(String id, MavenProject p, int depth, Set<DependencyDetail> details) throws MojoExecutionException {
+            Deque<TreeFrame> stack = new ArrayDeque<TreeFrame>();
+            TreeFrame f = startProjectInTree(id, p, depth, details);
+            if (f!=null) stack.push(f);
+            while (!stack.isEmpty()) {
+                f = stack.peek();
+                TreeFrame child = null;
+                while (child==null && f.deps.hasNext()) {
+                    Map.Entry<String,Set<DependencyDetail>> d = f.deps.next();
+                    DetailLevel dl = best(d.getValue());
+                    if (isIncluded(dl)) {
+                        if (!f.depsShown) {
+                            f.depsShown = true;
+                            if (deferSummary) outputWithPlus(f.id + extraInfoForProjectLineInfo(f.id, f.project, f.details, null));
+                            introduceDependenciesDetail();
+                            currentPrefix.append(linePrefix);
+                        }
+                        child = startProjectInTree(d.getKey(), null, f.depth+1, d.getValue());
+                    }
+                }
+                if (child!=null) {
+                    stack.push(child);
+                } else {
+                    stack.pop();
+                    if (f.depsShown) {
+                        currentPrefix.setLength(currentPrefix.length()-linePrefix.length());
+                    } else {
+                        if (deferSummary) outputWithPlus(f.id + extraInfoForProjectLineInfo(f.id, f.project, f.details, "no dependencies"));
+                    }
+                }
+            }
+        }
+        
+        /** A project being reported in the tree, and the dependencies still to be visited. */
+        protected class TreeFrame {
+            final String id;
+            final MavenProject project;
+            final int depth;
+            final Set<DependencyDetail> details;
+            final Iterator<Map.Entry<String,Set<DependencyDetail>>> deps;
+            boolean depsShown = false;
+            TreeFrame(String id, MavenProject project, int depth, Set<DependencyDetail> details, Iterator<Map.Entry<String,Set<DependencyDetail>>> deps) {
+                this.id = id;
+                this.project = project;
+                this.depth = depth;
+                this.details = details;
+                this.deps = deps;
+            }
+        }
+
+        /** Outputs what is shown for a project before its dependencies,
+         * returning a frame if its dependencies are to be visited, or null if it is just mentioned. */
+        protected TreeFrame startProjectInTree(String id, MavenProject p, int depth, Set<DependencyDetail> details) throws MojoExecutionException {
             if (!reportedProjects.contains(id)) {
                 if (ids.contains(id)) {
                     DetailLevel level = best(details);
                     getLog().debug("Details of "+id+": "+details+" ("+level+")");
                     if (level==DetailLevel.INCLUDE_WITH_DETAIL) {
-                        if (!deferSummary) output(prefixWithPlus() + id + extraInfoForProjectLineInfo(id, p, details, null));
+                        if (!deferSummary) outputWithPlus(id + extraInfoForProjectLineInfo(id, p, details, null));
                         reportedProjects.add(id);
                         
                         SimpleMultiMap<String, DependencyDetail> deps = runProject(id);
-                        boolean depsShown = false;
+                        Iterator<Map.Entry<String,Set<DependencyDetail>>> depsToVisit = Collections.emptyIterator();
                         if (!deps.isEmpty() && depth <= maxDepth) {
-                            for (Map.Entry<String,Set<DependencyDetail>> d: deps.entrySet()) {
-                                DetailLevel dl = best(d.getValue());
-                                if (isIncluded(dl)) {
-                                    if (!depsShown) {
-                                        depsShown = true;
-                                        if (deferSummary) output(prefixWithPlus() + id + extraInfoForProjectLineInfo(id, p, details, null));
-                                        introduceDependenciesDetail();
-                                        currentPrefix = currentPrefix + linePrefix;
-                                    }
-                                    runProjectRecursively(d.getKey(), null, depth+1, d.getValue());
-                                }
-                            }
-                        }
-                        if (depsShown) {
-                            currentPrefix = currentPrefix.substring(0, currentPrefix.length()-linePrefix.length());
-                        } else {
-                            if (deferSummary) output(prefixWithPlus() + id + extraInfoForProjectLineInfo(id, p, details, "no dependencies"));
+                            depsToVisit = deps.entrySet().iterator();
                         }
+                        return new TreeFrame(id, p, depth, details, depsToVisit);
                     } else if (level==DetailLevel.INCLUDE_IN_SUMMARY_EXPANDED_ELSEWHERE) {
                         // reported later
-                        output(prefixWithPlus() + id + extraInfoForProjectLineInfo(id, p, details, "reported below"));
+                        outputWithPlus(id + extraInfoForProjectLineInfo(id, p, details, "reported below"));
                     } else {
                         if (level==DetailLevel.INCLUDE_IN_SUMMARY_BUT_NOT_USED_OR_EXPANDED) {
                             // shouldn't happen -- unincluded optionals should not be in 'ids' and so will be treated as unexpected
                         }
                         // for optional dependencies we want to include
-                        output(prefixWithPlus() + id + extraInfoForProjectLineInfo(id, p, details, "unknown inclusion"));
+                        outputWithPlus(id + extraInfoForProjectLineInfo(id, p, details, "unknown inclusion"));
                     }
                 } else {
                     onUnexpectedDependency(id, p, details);
                 }
             } else {
-                output(prefixWithPlus() + id + extraInfoForProjectLineInfo(id, p, details, "reported above"));
+                outputWithPlus(id + extraInfoForProjectLineInfo(id, p, details, "reported above"));
             }
+            return null;
         }
         
         protected void onUnexpectedDependency(String id, MavenProject p, Set<DependencyDetail> details) throws MojoExecutionException {
@@ -770,7 +881,7 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
                 // due to depth etc; would be good to get confirmation of which cases this comes up and more elaborate messages
                 message = "excluded from report";
             }
-            output(prefixWithPlus() + id + extraInfoForProjectLineInfo(id, p, details, message));
+            outputWithPlus(id + extraInfoForProjectLineInfo(id, p, details, message));
         }
 
         protected abstract void introduceDependenciesDetail() throws MojoExecutionException;
@@ -783,6 +894,13 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
     public class TreeReport extends AbstractTreeReport {
         
         public TreeReport() { super("  +-", "  | ", false); }
+        
+        @Override
+        protected Set<ReportData> getDataNeeded() {
+            Set<ReportData> result = super.getDataNeeded();
+            result.remove(ReportData.DETAILS);
+            return result;
+        }
 
         @Override
         public void onAddProjectEntry(String key, String value) throws MojoExecutionException {
@@ -791,10 +909,10 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
                 return;
             }
             boolean multiline = value.indexOf('\n')>=0;
-            output(currentPrefix + "  "+key+":"+(multiline ? "" : " "+value));
+            outputIndented("  "+key+":"+(multiline ? "" : " "+value));
             if (multiline) {
                 for (Object v: value.split("\n")) {
-                    output(currentPrefix + "    "+v);
+                    outputIndented("    "+v);
                 }
             }
         }
@@ -809,7 +927,7 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
         
         @Override
         protected void introduceDependenciesDetail() throws MojoExecutionException {
-            output(currentPrefix + "  Dependencies pulled in here detail:");
+            outputIndented("  Dependencies pulled in here detail:");
         }
 
         @Override
@@ -820,7 +938,7 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
 
         @Override
         protected String getInclusionMessageForDetailElsewhere(String id) {
-            return ", from "+join(projectToDependencyGraphParent.get(id), " ");
+            return ", from "+join(graph.getParents(id), " ");
         }
 
         @Override
@@ -838,6 +956,15 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
 
         public SummaryReport() { super("+-", "| ", true); }
         
+        @Override
+        protected Set<ReportData> getDataNeeded() {
+            // licenses are shown on each line, nothing else
+            Set<ReportData> result = super.getDataNeeded();
+            result.remove(ReportData.DETAILS);
+            result.remove(ReportData.COPYRIGHT);
+            return result;
+        }
+        
         @Override
         public void onAddProjectEntry(String key, String value) {
         }
@@ -854,10 +981,10 @@ public class LicenseAuditMojo extends AbstractLicensingMojo {
         protected void onUnexpectedDependency(String id, MavenProject p, Set<DependencyDetail> details) throws MojoExecutionException {
             // will happen for wrong version of project due to how summary tree is made
             String unversionedId = id.substring(0, id.lastIndexOf(":"));
-            String realP = includedProjectsUnversionedToVersioned.get(unversionedId);
+            String realP = graph.getIncludedProject(unversionedId);
             if (realP!=null) {
                 String v = realP.split(":")[realP.split(":").length-1];
-                output(prefixWithPlus() + id + extraInfoForProjectLineInfo(id, p, details, "v "+v+" used"));
+                outputWithPlus(id + extraInfoForProjectLineInfo(id, p, details, "v "+v+" used"));
             } else {
                 super.onUnexpectedDependency(id, p, details);
             }
@@ -0,0 +1,96 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Values kept in binary files under a directory, each valid only for the checksum it was stored with,
+ * used by the persistent caches ({@link ProjectMetadataCache}, {@link OverridesFileCache}, {@link JarLicenseScanner}).
+ * Each file holds the checksum then the value written by the {@link Codec}; one which is missing, for another checksum,
+ * or can't be read (corrupt, or from an old version) is a miss, and is overwritten when the value is next put.
+ * Safe for concurrent use, including by several processes sharing the directory. */
+public class ChecksumFileStore<T> {
+
+    /** Writes and reads the values stored. */
+    public interface Codec<T> {
+        void write(T value, DataOutput out) throws IOException;
+        T read(DataInput in) throws IOException;
+    }
+
+    private final File dir;
+    private final Codec<T> codec;
+    final AtomicInteger hits = new AtomicInteger();
+    final AtomicInteger misses = new AtomicInteger();
+
+    public ChecksumFileStore(File dir, Codec<T> codec) {
+        this.dir = dir;
+        this.codec = codec;
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /** The file for the given path, relative to the directory and using / as separator. */
+    protected File fileFor(String path) {
+        return new File(dir, path.replace('/', File.separatorChar));
+    }
+
+    /** Returns the value stored at the path for the checksum given, otherwise null (a miss). */
+    public T get(String path, String checksum) {
+        T result = null;
+        File f = fileFor(path);
+        if (checksum!=null && f.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+                if (checksum.equals(in.readUTF())) {
+                    result = codec.read(in);
+                }
+            } catch (IOException e) {
+                // corrupt or from an old version; treat as a miss, it will be overwritten
+                result = null;
+            }
+        }
+        if (result!=null) hits.incrementAndGet();
+        else misses.incrementAndGet();
+        return result;
+    }
+
+    /** Stores the value at the path for the checksum given.
+     * @throws IOException if it can't be stored, e.g. the directory is read-only,
+     * in which case any previous file is left as it was */
+    public void put(String path, String checksum, T value) throws IOException {
+        File f = fileFor(path);
+        File tmp = null;
+        try {
+            f.getParentFile().mkdirs();
+            // write then move so that readers never see a partial file
+            tmp = File.createTempFile(f.getName(), ".tmp", f.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeUTF(checksum);
+                codec.write(value, out);
+            }
+            Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (tmp!=null) tmp.delete();
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/** Digests, and their hex form, as used to key the caches. */
+public class Checksums {
+
+    /** Returns a new digest for the given algorithm, which every JVM must support (e.g. SHA-1 or SHA-256). */
+    public static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Returns the digest as lower-case hex; no more can be added to it afterwards. */
+    public static String toHex(MessageDigest digest) {
+        return toHex(digest.digest());
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] result = new char[bytes.length*2];
+        for (int i=0; i<bytes.length; i++) {
+            result[2*i] = Character.forDigit((bytes[i] >> 4) & 0xf, 16);
+            result[2*i+1] = Character.forDigit(bytes[i] & 0xf, 16);
+        }
+        return new String(result);
+    }
+
+}
@@ -1,10 +1,31 @@
 package org.heneveld.maven.license_audit.util;
 
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import org.apache.maven.project.MavenProject;
 import org.eclipse.aether.graph.DependencyNode;
 
+/** Immutable coordinates; the <code>of</code> methods return a canonical (interned) instance,
+ * so the string forms, which are computed on first use and then remembered,
+ * are shared by everything referring to the same coordinates (and only one copy of each is retained,
+ * although a short-lived instance is still created for each lookup). */
 public class Coords {
+    
+    // canonical instances are held weakly, so are dropped once nothing refers to them
+    // (in a long-lived JVM, e.g. a daemon or an IDE, this would otherwise grow with every build);
+    // striped by hash to limit contention between threads loading projects
+    private static final int INTERNED_STRIPES = 16;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Map<Coords,WeakReference<Coords>>[] INTERNED = new Map[INTERNED_STRIPES];
+    static {
+        for (int i=0; i<INTERNED_STRIPES; i++) INTERNED[i] = new WeakHashMap<Coords,WeakReference<Coords>>();
+    }
+    
     public final String groupId, artifactId, version, baseVersion, packagingExtensionType, classifier;
+    private final int hash;
+    private String baseArtifact, realArtifact, unversionedArtifact, normal, unversioned;
 
     public Coords(String groupId, String artifactId, String version, String baseVersion, String packagingExtensionType, String classifier) {
         this.groupId = groupId;
@@ -13,43 +34,98 @@ public class Coords {
         this.baseVersion = baseVersion;
         this.packagingExtensionType = packagingExtensionType;
         this.classifier = classifier;
+        this.hash = hash(groupId, artifactId, version, baseVersion, packagingExtensionType, classifier);
     }
     
     public static Coords of(MavenProject x) {
         // prefer artifact coords as that will be canonical, but it might not be available, e.g. for root project
         if (x.getArtifact()!=null) return of(x.getArtifact());
-        return new Coords(x.getGroupId(), x.getArtifactId(), x.getVersion(), x.getVersion(), "", "");
+        return new Coords(x.getGroupId(), x.getArtifactId(), x.getVersion(), x.getVersion(), "", "").intern();
     }
 
     public static Coords of(org.apache.maven.model.Dependency x) {
-        return new Coords(x.getGroupId(), x.getArtifactId(), x.getVersion(), x.getVersion(), x.getType(), x.getClassifier());
+        return new Coords(x.getGroupId(), x.getArtifactId(), x.getVersion(), x.getVersion(), x.getType(), x.getClassifier()).intern();
     }
     public static Coords of(org.apache.maven.artifact.Artifact x) {
-        return new Coords(x.getGroupId(), x.getArtifactId(), x.getVersion(), x.getBaseVersion(), x.getType(), x.getClassifier());
+        return new Coords(x.getGroupId(), x.getArtifactId(), x.getVersion(), x.getBaseVersion(), x.getType(), x.getClassifier()).intern();
     }
     public static Coords of(DependencyNode x) {
         return new Coords(x.getArtifact().getGroupId(), x.getArtifact().getArtifactId(), x.getArtifact().getVersion(), 
-            x.getArtifact().getBaseVersion(), x.getArtifact().getExtension(), x.getArtifact().getClassifier());
+            x.getArtifact().getBaseVersion(), x.getArtifact().getExtension(), x.getArtifact().getClassifier()).intern();
     }
     
+    /** Returns the canonical instance equal to this one. */
+    public Coords intern() {
+        Map<Coords,WeakReference<Coords>> stripe = INTERNED[(hash & 0x7fffffff) % INTERNED_STRIPES];
+        synchronized (stripe) {
+            WeakReference<Coords> ref = stripe.get(this);
+            Coords result = ref!=null ? ref.get() : null;
+            if (result!=null) return result;
+            stripe.put(this, new WeakReference<Coords>(this));
+            return this;
+        }
+    }
+    
+    // the memoized fields below are assigned without synchronization;
+    // a race only means the (equal) string is computed twice
+    
     public String baseArtifact() {
-        return toString(true, true, false);
+        String result = baseArtifact;
+        if (result==null) baseArtifact = result = toString(true, true, false);
+        return result;
     }
     
     public String realArtifact() {
-        return toString(true, true, true);
+        String result = realArtifact;
+        if (result==null) realArtifact = result = toString(true, true, true);
+        return result;
     }
     
     public String unversionedArtifact() {
-        return toString(false, true, false);
+        String result = unversionedArtifact;
+        if (result==null) unversionedArtifact = result = toString(false, true, false);
+        return result;
     }
     
     public String normal() {
-        return toString(true, false, false);
+        String result = normal;
+        if (result==null) normal = result = toString(true, false, false);
+        return result;
     }
     
     public String unversioned() {
-        return toString(false, false, false);
+        String result = unversioned;
+        if (result==null) unversioned = result = toString(false, false, false);
+        return result;
+    }
+    
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (this==obj) return true;
+        if (!(obj instanceof Coords)) return false;
+        Coords o = (Coords) obj;
+        return hash==o.hash && eq(groupId, o.groupId) && eq(artifactId, o.artifactId) && eq(version, o.version) && 
+            eq(baseVersion, o.baseVersion) && eq(packagingExtensionType, o.packagingExtensionType) && eq(classifier, o.classifier);
+    }
+    
+    @Override
+    public String toString() {
+        return realArtifact();
+    }
+    
+    private static boolean eq(String a, String b) {
+        return a==null ? b==null : a.equals(b);
+    }
+    
+    private static int hash(String... parts) {
+        int result = 1;
+        for (String s: parts) result = 31*result + (s==null ? 0 : s.hashCode());
+        return result;
     }
     
     private String toString(boolean includeVersion, boolean includeTypeAndClassifier, boolean useRealVersion) {
@@ -0,0 +1,237 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.eclipse.aether.graph.DependencyNode;
+
+/** The dependency graph as walked by the mojos, indexed for the lookups the reports make.
+ * <p>
+ * Each project (keyed by {@link Coords#normal()}) and each artifact (keyed by {@link Coords#baseArtifact()})
+ * is given an integer id when first seen; everything else refers to those ids,
+ * with edges held in int arrays, so the cost is per node and the id strings are held once.
+ * <p>
+ * Not thread-safe; the graph is walked by a single thread. */
+public class DependencyGraphIndex {
+
+    private static final int[] NO_IDS = new int[0];
+
+    // projects
+    private final Map<String,Integer> projectIndex = new HashMap<String,Integer>();
+    private String[] projectIds = new String[64];
+    private int projectCount = 0;
+    private boolean[] projectIncluded = new boolean[64];
+    // included projects, in the order they were first included
+    private int[] includedOrder = new int[64];
+    private int includedCount = 0;
+    // parents in the graph, and reactor modules which pull in a project, as project ids
+    private int[][] parents = new int[64][];
+    private int[] parentCounts = new int[64];
+    private int[][] reactorModules = new int[64][];
+    private int[] reactorModuleCounts = new int[64];
+    // objects from the graph (nodes as GraphNode), by project id; lists as there are rarely more than one or two
+    private Object[] nodes = new Object[64];
+    private Object[] artifacts = new Object[64];
+
+    // artifacts, those included only, each to its project
+    private final Map<String,Integer> artifactIndex = new HashMap<String,Integer>();
+    private String[] artifactIds = new String[64];
+    private int[] artifactProject = new int[64];
+    private int artifactCount = 0;
+
+    // children, which are the same wherever they appear, so held once
+    private final Map<GraphNode,GraphNode> childNodes = new HashMap<GraphNode,GraphNode>();
+
+    // most recently included versions
+    private final Map<String,Integer> unversionedToProject = new HashMap<String,Integer>();
+    private final Map<String,Integer> unversionedArtifactToArtifact = new HashMap<String,Integer>();
+
+    /** Returns the id for the project, assigning one if it is new. */
+    protected int projectId(Coords c) {
+        String key = c.normal();
+        Integer result = projectIndex.get(key);
+        if (result!=null) return result;
+        int id = projectCount++;
+        if (id==projectIds.length) {
+            int size = id*2;
+            projectIds = Arrays.copyOf(projectIds, size);
+            projectIncluded = Arrays.copyOf(projectIncluded, size);
+            parents = Arrays.copyOf(parents, size);
+            parentCounts = Arrays.copyOf(parentCounts, size);
+            reactorModules = Arrays.copyOf(reactorModules, size);
+            reactorModuleCounts = Arrays.copyOf(reactorModuleCounts, size);
+            nodes = Arrays.copyOf(nodes, size);
+            artifacts = Arrays.copyOf(artifacts, size);
+        }
+        projectIds[id] = key;
+        projectIndex.put(key, id);
+        return id;
+    }
+
+    protected int artifactId(Coords c, int project) {
+        String key = c.baseArtifact();
+        Integer result = artifactIndex.get(key);
+        if (result!=null) return result;
+        int id = artifactCount++;
+        if (id==artifactIds.length) {
+            artifactIds = Arrays.copyOf(artifactIds, id*2);
+            artifactProject = Arrays.copyOf(artifactProject, id*2);
+        }
+        artifactIds[id] = key;
+        artifactProject[id] = project;
+        artifactIndex.put(key, id);
+        return id;
+    }
+
+    /** Records a node encountered in the graph, whether or not it is included;
+     * only what is needed of it is kept, as a {@link GraphNode}. */
+    public void addNode(Coords c, DependencyNode node) {
+        List<GraphNode> children = new ArrayList<GraphNode>(node.getChildren().size());
+        for (DependencyNode child: node.getChildren()) {
+            GraphNode gn = new GraphNode(Coords.of(child), scope(child), optional(child), null);
+            GraphNode existing = childNodes.get(gn);
+            if (existing==null) childNodes.put(gn, gn);
+            else gn = existing;
+            children.add(gn);
+        }
+        addUnique(nodes, projectId(c), new GraphNode(c, scope(node), optional(node), children));
+    }
+
+    private static String scope(DependencyNode node) {
+        return node.getDependency()==null ? null : node.getDependency().getScope();
+    }
+
+    private static boolean optional(DependencyNode node) {
+        return node.getDependency()!=null && node.getDependency().isOptional();
+    }
+
+    /** Records that a node is included in the report, with the artifact it refers to. */
+    public void include(Coords c, Artifact artifact) {
+        int project = projectId(c);
+        if (!projectIncluded[project]) {
+            projectIncluded[project] = true;
+            if (includedCount==includedOrder.length) includedOrder = Arrays.copyOf(includedOrder, includedCount*2);
+            includedOrder[includedCount++] = project;
+        }
+        int art = artifactId(c, project);
+        unversionedArtifactToArtifact.put(c.unversionedArtifact(), art);
+        unversionedToProject.put(c.unversioned(), project);
+        addUnique(artifacts, project, artifact);
+    }
+
+    public void addParent(Coords child, Coords parent) {
+        int c = projectId(child);
+        int p = projectId(parent);
+        parents[c] = addUnique(parents[c], parentCounts, c, p);
+    }
+
+    public void addReactorModule(Coords c, Coords module) {
+        int p = projectId(c);
+        int m = projectId(module);
+        reactorModules[p] = addUnique(reactorModules[p], reactorModuleCounts, p, m);
+    }
+
+    private static int[] addUnique(int[] list, int[] counts, int index, int value) {
+        if (list==null) list = NO_IDS;
+        int count = counts[index];
+        for (int i=0; i<count; i++) {
+            if (list[i]==value) return list;
+        }
+        if (count==list.length) list = Arrays.copyOf(list, Math.max(2, count*2));
+        list[count] = value;
+        counts[index] = count+1;
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void addUnique(Object[] lists, int index, T value) {
+        List<T> list = (List<T>) lists[index];
+        if (list==null) {
+            list = new ArrayList<T>(1);
+            lists[index] = list;
+        }
+        if (!list.contains(value)) list.add(value);
+    }
+
+    private Integer project(String projectId) {
+        if (projectId==null) return null;
+        return projectIndex.get(projectId);
+    }
+
+    private List<String> projectIds(int[] ids, int count) {
+        if (count==0) return null;
+        List<String> result = new ArrayList<String>(count);
+        for (int i=0; i<count; i++) result.add(projectIds[ids[i]]);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> objects(Object[] lists, String projectId) {
+        Integer p = project(projectId);
+        if (p==null || lists[p]==null) return null;
+        return Collections.unmodifiableList((List<T>) lists[p]);
+    }
+
+    /** Whether the project was included in the report, for any artifact. */
+    public boolean isIncludedProject(String projectId) {
+        Integer p = project(projectId);
+        return p!=null && projectIncluded[p];
+    }
+
+    /** Returns the ids of all included projects, in the order they were first included. */
+    public List<String> getIncludedProjects() {
+        List<String> result = new ArrayList<String>(includedCount);
+        for (int i=0; i<includedCount; i++) result.add(projectIds[includedOrder[i]]);
+        return result;
+    }
+
+    public boolean isIncludedBaseArtifact(String baseArtifact) {
+        return artifactIndex.containsKey(baseArtifact);
+    }
+
+    /** Returns the project id for an included artifact, or null. */
+    public String getProjectOfBaseArtifact(String baseArtifact) {
+        Integer a = baseArtifact==null ? null : artifactIndex.get(baseArtifact);
+        return a==null ? null : projectIds[artifactProject[a]];
+    }
+
+    /** Returns the base artifact coordinates of the included version of an artifact, or null. */
+    public String getIncludedBaseArtifact(String unversionedArtifact) {
+        Integer a = unversionedArtifactToArtifact.get(unversionedArtifact);
+        return a==null ? null : artifactIds[a];
+    }
+
+    /** Returns the project id of the included version of a project, or null. */
+    public String getIncludedProject(String unversionedProjectId) {
+        Integer p = unversionedToProject.get(unversionedProjectId);
+        return p==null ? null : projectIds[p];
+    }
+
+    /** Returns the projects from which the given project is a dependency in the graph, or null. */
+    public List<String> getParents(String projectId) {
+        Integer p = project(projectId);
+        return p==null ? null : projectIds(parents[p], parentCounts[p]);
+    }
+
+    /** Returns the reactor modules which pull in the given project, or null. */
+    public List<String> getReactorModules(String projectId) {
+        Integer p = project(projectId);
+        return p==null ? null : projectIds(reactorModules[p], reactorModuleCounts[p]);
+    }
+
+    /** Returns the nodes for the given project in the graph, or null. */
+    public List<GraphNode> getNodes(String projectId) {
+        return objects(nodes, projectId);
+    }
+
+    /** Returns the included artifacts of the given project, or null. */
+    public List<Artifact> getArtifacts(String projectId) {
+        return objects(artifacts, projectId);
+    }
+
+}
@@ -0,0 +1,180 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+
+/** Everything the reports need from a run, once dependencies have been resolved, projects loaded and any jars scanned,
+ * in a compact binary form, so that reports can be produced later without maven resolution.
+ * <p>
+ * Graph nodes are written once each, with their children as references,
+ * so shared parts of the graph are not repeated and are shared again when read. */
+public class DependencySnapshot {
+
+    static final String MAGIC = "license-audit-snapshot";
+    static final int FORMAT_VERSION = 2;
+
+    public String rootProject;
+    public boolean aggregate;
+    public final List<String> reactorProjects = new ArrayList<String>();
+    /** the root of the dependency graph for each project audited, keyed by project id */
+    public final Map<String,DependencyNode> graphs = new LinkedHashMap<String,DependencyNode>();
+    /** the projects loaded, in the order they were loaded, keyed by project id */
+    public final Map<String,ProjectMetadata> projects = new LinkedHashMap<String,ProjectMetadata>();
+    /** the year used in copyright lines for projects, where known */
+    public final Map<String,Integer> releaseYears = new LinkedHashMap<String,Integer>();
+    public final Map<String,List<String>> errors = new LinkedHashMap<String,List<String>>();
+    /** what the artifacts of projects say about their licensing, if jars were scanned, keyed by project id */
+    public final Map<String,JarLicenseInfo> jarLicenses = new LinkedHashMap<String,JarLicenseInfo>();
+
+    public void writeTo(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeUTF(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            ProjectMetadata.writeString(out, rootProject);
+            out.writeBoolean(aggregate);
+            out.writeInt(reactorProjects.size());
+            for (String id: reactorProjects) ProjectMetadata.writeString(out, id);
+
+            // number the nodes, parents before children
+            Map<DependencyNode,Integer> nodeIds = new IdentityHashMap<DependencyNode,Integer>();
+            List<DependencyNode> nodes = new ArrayList<DependencyNode>();
+            for (DependencyNode root: graphs.values()) {
+                List<DependencyNode> toVisit = new ArrayList<DependencyNode>();
+                toVisit.add(root);
+                while (!toVisit.isEmpty()) {
+                    DependencyNode n = toVisit.remove(toVisit.size()-1);
+                    if (nodeIds.containsKey(n)) continue;
+                    nodeIds.put(n, nodes.size());
+                    nodes.add(n);
+                    toVisit.addAll(n.getChildren());
+                }
+            }
+            out.writeInt(nodes.size());
+            for (DependencyNode n: nodes) {
+                writeArtifact(out, n.getArtifact());
+                Dependency d = n.getDependency();
+                out.writeBoolean(d!=null);
+                if (d!=null) {
+                    ProjectMetadata.writeString(out, d.getScope());
+                    out.writeBoolean(d.isOptional());
+                }
+            }
+            for (DependencyNode n: nodes) {
+                out.writeInt(n.getChildren().size());
+                for (DependencyNode c: n.getChildren()) out.writeInt(nodeIds.get(c));
+            }
+            out.writeInt(graphs.size());
+            for (Map.Entry<String,DependencyNode> g: graphs.entrySet()) {
+                ProjectMetadata.writeString(out, g.getKey());
+                out.writeInt(nodeIds.get(g.getValue()));
+            }
+
+            out.writeInt(projects.size());
+            for (Map.Entry<String,ProjectMetadata> p: projects.entrySet()) {
+                ProjectMetadata.writeString(out, p.getKey());
+                p.getValue().writeTo(out);
+                Integer year = releaseYears.get(p.getKey());
+                out.writeInt(year==null ? -1 : year);
+            }
+            out.writeInt(errors.size());
+            for (Map.Entry<String,List<String>> e: errors.entrySet()) {
+                ProjectMetadata.writeString(out, e.getKey());
+                out.writeInt(e.getValue().size());
+                for (String err: e.getValue()) ProjectMetadata.writeString(out, err);
+            }
+            out.writeInt(jarLicenses.size());
+            for (Map.Entry<String,JarLicenseInfo> j: jarLicenses.entrySet()) {
+                ProjectMetadata.writeString(out, j.getKey());
+                j.getValue().writeTo(out);
+            }
+        }
+    }
+
+    public static DependencySnapshot readFrom(File file) throws IOException {
+        DependencySnapshot result = new DependencySnapshot();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (!MAGIC.equals(in.readUTF())) throw new IOException("Not a dependency snapshot: "+file);
+            int format = in.readInt();
+            if (format!=FORMAT_VERSION) throw new IOException("Unsupported dependency snapshot format "+format+" in "+file);
+            result.rootProject = ProjectMetadata.readString(in);
+            result.aggregate = in.readBoolean();
+            for (int i=in.readInt(); i>0; i--) result.reactorProjects.add(ProjectMetadata.readString(in));
+
+            DefaultDependencyNode[] nodes = new DefaultDependencyNode[in.readInt()];
+            for (int i=0; i<nodes.length; i++) {
+                Artifact a = readArtifact(in);
+                if (in.readBoolean()) {
+                    String scope = ProjectMetadata.readString(in);
+                    nodes[i] = new DefaultDependencyNode(new Dependency(a, scope, in.readBoolean()));
+                } else {
+                    nodes[i] = new DefaultDependencyNode(a);
+                }
+            }
+            for (DefaultDependencyNode n: nodes) {
+                List<DependencyNode> children = new ArrayList<DependencyNode>();
+                for (int i=in.readInt(); i>0; i--) children.add(nodes[in.readInt()]);
+                n.setChildren(children);
+            }
+            for (int i=in.readInt(); i>0; i--) {
+                String id = ProjectMetadata.readString(in);
+                result.graphs.put(id, nodes[in.readInt()]);
+            }
+
+            for (int i=in.readInt(); i>0; i--) {
+                String id = ProjectMetadata.readString(in);
+                result.projects.put(id, ProjectMetadata.readFrom(in));
+                int year = in.readInt();
+                if (year!=-1) result.releaseYears.put(id, year);
+            }
+            for (int i=in.readInt(); i>0; i--) {
+                String id = ProjectMetadata.readString(in);
+                List<String> errs = new ArrayList<String>();
+                for (int j=in.readInt(); j>0; j--) errs.add(ProjectMetadata.readString(in));
+                result.errors.put(id, errs);
+            }
+            for (int i=in.readInt(); i>0; i--) {
+                String id = ProjectMetadata.readString(in);
+                result.jarLicenses.put(id, JarLicenseInfo.readFrom(in));
+            }
+        }
+        return result;
+    }
+
+    private static void writeArtifact(DataOutputStream out, Artifact a) throws IOException {
+        out.writeBoolean(a!=null);
+        if (a==null) return;
+        ProjectMetadata.writeString(out, a.getGroupId());
+        ProjectMetadata.writeString(out, a.getArtifactId());
+        ProjectMetadata.writeString(out, a.getClassifier());
+        ProjectMetadata.writeString(out, a.getExtension());
+        ProjectMetadata.writeString(out, a.getVersion());
+        ProjectMetadata.writeString(out, a.getFile()==null ? null : a.getFile().getPath());
+    }
+
+    private static Artifact readArtifact(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) return null;
+        Artifact a = new DefaultArtifact(ProjectMetadata.readString(in), ProjectMetadata.readString(in),
+            ProjectMetadata.readString(in), ProjectMetadata.readString(in), ProjectMetadata.readString(in));
+        String file = ProjectMetadata.readString(in);
+        if (file!=null) a = a.setFile(new File(file));
+        return a;
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.heneveld.maven.license_audit.util;
+
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.DependencyTraverser;
+import org.eclipse.aether.graph.Dependency;
+
+/** Stops collecting at the depth beyond which nothing is reported:
+ * dependencies down to <code>maxDepth</code> are visited by the report,
+ * and those one level further are kept (without their dependencies) so the report can say they are in the graph.
+ * <p>
+ * Value-equal, as aether reuses the work done for equal traversers. */
+public class DepthLimitingDependencyTraverser implements DependencyTraverser {
+
+    private final DependencyTraverser base;
+    // the depth of the dependencies this is asked about, 1 being direct dependencies of the project;
+    // not incremented once beyond maxDepth as deeper dependencies are never reached
+    private final int depth;
+    private final int maxDepth;
+
+    public DepthLimitingDependencyTraverser(DependencyTraverser base, int maxDepth) {
+        this(base, 0, maxDepth);
+    }
+
+    private DepthLimitingDependencyTraverser(DependencyTraverser base, int depth, int maxDepth) {
+        this.base = base;
+        this.depth = depth;
+        this.maxDepth = maxDepth;
+    }
+
+    public boolean traverseDependency(Dependency dependency) {
+        if (depth>maxDepth) return false;
+        return base==null || base.traverseDependency(dependency);
+    }
+
+    public DependencyTraverser deriveChildTraverser(DependencyCollectionContext context) {
+        DependencyTraverser childBase = base==null ? null : base.deriveChildTraverser(context);
+        int childDepth = depth>maxDepth ? depth : depth+1;
+        if (childDepth==depth && childBase==base) return this;
+        return new DepthLimitingDependencyTraverser(childBase, childDepth, maxDepth);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this==obj) return true;
+        if (obj==null || obj.getClass()!=getClass()) return false;
+        DepthLimitingDependencyTraverser other = (DepthLimitingDependencyTraverser) obj;
+        return depth==other.depth && maxDepth==other.maxDepth
+            && (base==null ? other.base==null : base.equals(other.base));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = getClass().hashCode();
+        result = result*31 + depth;
+        result = result*31 + maxDepth;
+        result = result*31 + (base==null ? 0 : base.hashCode());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()+"[depth="+depth+", maxDepth="+maxDepth+", base="+base+"]";
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+
+/** Reads the descriptors (POMs) of a dependency graph breadth-first, a whole level at a time in parallel,
+ * so that they are local when the (single-threaded, depth-first) collector walks the graph.
+ * <p>
+ * The graph itself is still built by the collector, so it is exactly as it would be otherwise;
+ * this only needs to approximate it: version ranges, exclusions and nested dependency management are ignored,
+ * so a few descriptors may be read which are not needed, and the collector may have to fetch a few itself. */
+public class DescriptorPrefetcher {
+
+    private final RepositorySystem system;
+    private final RepositorySystemSession session;
+    private final List<RemoteRepository> repositories;
+    private final int threads;
+    // versions from the project's dependency management, keyed by groupId:artifactId:extension:classifier
+    private final Map<String,String> managedVersions = new HashMap<String,String>();
+    private int read = 0, failed = 0;
+
+    public DescriptorPrefetcher(RepositorySystem system, RepositorySystemSession session, List<RemoteRepository> repositories, int threads) {
+        this.system = system;
+        this.session = session;
+        this.repositories = repositories;
+        this.threads = threads;
+    }
+
+    public void addManagedDependencies(List<Dependency> managed) {
+        for (Dependency d: managed) {
+            managedVersions.put(unversionedKey(d.getArtifact()), d.getArtifact().getVersion());
+        }
+    }
+
+    public int getRead() {
+        return read;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    private static String unversionedKey(Artifact a) {
+        return a.getGroupId()+":"+a.getArtifactId()+":"+a.getExtension()+":"+a.getClassifier();
+    }
+
+    private static boolean isRange(String version) {
+        return version==null || version.indexOf('[')>=0 || version.indexOf('(')>=0 || version.indexOf(',')>=0;
+    }
+
+    /** Reads the descriptors of the given direct dependencies and of their (non-optional, compile and runtime) dependencies
+     * down to the given depth, where the direct dependencies are at depth 1. */
+    public void prefetch(List<Dependency> direct, int maxDepth) throws InterruptedException {
+        Set<String> seen = new HashSet<String>();
+        List<Artifact> level = new ArrayList<Artifact>();
+        for (Dependency d: direct) addToLevel(level, seen, d);
+
+        ExecutorService executor = ThreadPools.newBoundedExecutor(threads);
+        try {
+            for (int depth=1; !level.isEmpty() && depth<=maxDepth; depth++) {
+                List<Future<ArtifactDescriptorResult>> results = new ArrayList<Future<ArtifactDescriptorResult>>();
+                for (final Artifact a: level) {
+                    results.add(executor.submit(new Callable<ArtifactDescriptorResult>() {
+                        public ArtifactDescriptorResult call() throws Exception {
+                            return system.readArtifactDescriptor(session, new ArtifactDescriptorRequest(a, repositories, "project"));
+                        }
+                    }));
+                }
+                List<Artifact> next = new ArrayList<Artifact>();
+                for (Future<ArtifactDescriptorResult> f: results) {
+                    ArtifactDescriptorResult result;
+                    try {
+                        result = f.get();
+                        read++;
+                    } catch (ExecutionException e) {
+                        // the collector will report it
+                        failed++;
+                        continue;
+                    }
+                    for (Dependency d: result.getDependencies()) {
+                        if (d.isOptional()) continue;
+                        if (!"compile".equals(d.getScope()) && !"runtime".equals(d.getScope())) continue;
+                        addToLevel(next, seen, d);
+                    }
+                }
+                level = next;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void addToLevel(List<Artifact> level, Set<String> seen, Dependency d) {
+        Artifact a = d.getArtifact();
+        String managed = managedVersions.get(unversionedKey(a));
+        if (managed!=null) a = a.setVersion(managed);
+        if (isRange(a.getVersion())) return;
+        if (seen.add(unversionedKey(a)+":"+a.getVersion())) level.add(a);
+    }
+
+}
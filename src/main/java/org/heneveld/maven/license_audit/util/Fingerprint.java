@@ -0,0 +1,82 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.DependencyNode;
+
+/** Accumulates a digest of everything which determines the output of a run,
+ * so that a run can be skipped if nothing has changed since the last one. */
+public class Fingerprint {
+
+    final MessageDigest digest;
+
+    public Fingerprint() {
+        digest = Checksums.newDigest("SHA-256");
+    }
+
+    public Fingerprint add(String key, Object value) {
+        addString(key);
+        addString(value==null ? null : value.toString());
+        return this;
+    }
+
+    private void addString(String s) {
+        if (s==null) {
+            digest.update((byte)0);
+            return;
+        }
+        digest.update((byte)1);
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte)(bytes.length>>>24));
+        digest.update((byte)(bytes.length>>>16));
+        digest.update((byte)(bytes.length>>>8));
+        digest.update((byte)bytes.length);
+        digest.update(bytes);
+    }
+
+    /** Adds the contents of the file, or a marker if it does not exist. */
+    public Fingerprint addFile(String key, File file) throws IOException {
+        addString(key);
+        if (file==null || !file.exists()) {
+            addString(null);
+        } else {
+            addString(file.getPath());
+            digest.update(Files.readAllBytes(file.toPath()));
+        }
+        return this;
+    }
+
+    /** Adds the graph from the given node: each node's artifact (with resolved version), scope and optionality,
+     * and where it is in the graph. */
+    public Fingerprint addGraph(DependencyNode root) {
+        // iterative as graphs can be deep; depth recorded so the shape is captured
+        Deque<Object[]> stack = new ArrayDeque<Object[]>();
+        stack.push(new Object[] { root, 0 });
+        while (!stack.isEmpty()) {
+            Object[] entry = stack.pop();
+            DependencyNode n = (DependencyNode) entry[0];
+            int depth = (Integer) entry[1];
+            Artifact a = n.getArtifact();
+            addString(Integer.toString(depth));
+            addString(a==null ? null : a.getGroupId()+":"+a.getArtifactId()+":"+a.getExtension()+":"+a.getClassifier()+":"+a.getVersion());
+            addString(n.getDependency()==null ? null : n.getDependency().getScope()+(n.getDependency().isOptional() ? ":optional" : ""));
+            for (int i=n.getChildren().size()-1; i>=0; i--) {
+                stack.push(new Object[] { n.getChildren().get(i), depth+1 });
+            }
+        }
+        return this;
+    }
+
+    /** Returns the fingerprint as a hex string; no more can be added afterwards. */
+    public String finish() {
+        return Checksums.toHex(digest);
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.util.Collections;
+import java.util.List;
+
+/** What the reports use of a node in the dependency graph: its coordinates, how it is depended on,
+ * and the same for each of its children (but not theirs).
+ * Kept instead of the aether nodes, so the graph itself is not retained once it has been walked. */
+public final class GraphNode {
+
+    public final Coords coords;
+    /** null if there is no dependency, i.e. for the root of the graph */
+    public final String scope;
+    public final boolean optional;
+    private final List<GraphNode> children;
+    private final int hash;
+
+    public GraphNode(Coords coords, String scope, boolean optional, List<GraphNode> children) {
+        this.coords = coords;
+        this.scope = scope;
+        this.optional = optional;
+        this.children = children==null || children.isEmpty() ? Collections.<GraphNode>emptyList() : Collections.unmodifiableList(children);
+        int h = coords.hashCode();
+        h = h*31 + (scope==null ? 0 : scope.hashCode());
+        h = h*31 + (optional ? 1 : 0);
+        h = h*31 + this.children.hashCode();
+        this.hash = h;
+    }
+
+    /** The children of this node in the graph; these have no children recorded. */
+    public List<GraphNode> getChildren() {
+        return children;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this==obj) return true;
+        if (!(obj instanceof GraphNode)) return false;
+        GraphNode other = (GraphNode) obj;
+        return hash==other.hash && optional==other.optional && coords.equals(other.coords)
+            && (scope==null ? other.scope==null : scope.equals(other.scope))
+            && children.equals(other.children);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return coords.realArtifact()+(scope==null ? "" : " ("+scope+(optional ? ", optional" : "")+")");
+    }
+
+}
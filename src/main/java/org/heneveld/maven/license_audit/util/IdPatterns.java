@@ -0,0 +1,195 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+/** Override ids which match many projects: <code>groupId[:artifactId[:version]]</code> where the group and artifact
+ * may contain <code>*</code> (any characters, including none) and <code>?</code> (any one character),
+ * and the version may be a maven version range, e.g. <code>org.eclipse.jetty*:*:[9,10)</code> or <code>com.fasterxml.*</code>.
+ * As with plain ids, only the segments given are compared, so a pattern of just a group matches every artifact and version in it.
+ * <p>
+ * Patterns are indexed in a trie by the literal start of their group (up to the first wildcard), so matching an id
+ * only tests the patterns whose literal start is a prefix of its group, however many patterns there are.
+ * Not safe for concurrent modification, but safe for concurrent matching once built. */
+public final class IdPatterns {
+
+    private static final class Entry {
+        final String id;
+        final int index;
+        final Pattern[] globs;
+        final VersionRange versionRange;
+        final Map<String,Object> value;
+
+        Entry(String id, int index, Pattern[] globs, VersionRange versionRange, Map<String,Object> value) {
+            this.id = id;
+            this.index = index;
+            this.globs = globs;
+            this.versionRange = versionRange;
+            this.value = value;
+        }
+
+        boolean matches(String[] segments) {
+            if (segments.length<segments()) return false;
+            for (int i=0; i<globs.length; i++) {
+                if (globs[i]!=null && !globs[i].matcher(segments[i]).matches()) return false;
+            }
+            if (versionRange!=null) {
+                String v = segments[globs.length];
+                if (v.isEmpty() || v.equals("*")) return false;
+                return versionRange.containsVersion(new DefaultArtifactVersion(v));
+            }
+            return true;
+        }
+
+        int segments() {
+            return globs.length + (versionRange!=null ? 1 : 0);
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+
+    private static final class Node {
+        final Map<Character,Node> children = new HashMap<Character,Node>();
+        final List<Entry> entries = new ArrayList<Entry>();
+    }
+
+    // applied in this order, so later ones take precedence: fewer segments first, then as added
+    private static final Comparator<Entry> PRECEDENCE = new Comparator<Entry>() {
+        public int compare(Entry e1, Entry e2) {
+            if (e1.segments()!=e2.segments()) return e1.segments() - e2.segments();
+            return e1.index - e2.index;
+        }
+    };
+
+    private final Node root = new Node();
+    private final Map<String,Entry> byId = new HashMap<String,Entry>();
+
+    /** Whether the id is a pattern, rather than a plain id (possibly using the <code>group:*:*</code> and <code>group:artifact:*</code>
+     * forms, which are looked up as they are). */
+    public static boolean isPattern(String id) {
+        String[] segments = id.split(":", -1);
+        for (int i=0; i<segments.length; i++) {
+            String s = segments[i];
+            if (isVersionRange(s)) return true;
+            if (s.equals("*")) {
+                if (i==0) return true;
+                continue;
+            }
+            if (s.indexOf('*')>=0 || s.indexOf('?')>=0) return true;
+        }
+        return false;
+    }
+
+    private static boolean isVersionRange(String s) {
+        return s.startsWith("[") || s.startsWith("(");
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /** Adds a pattern, matching to the given value; if the pattern is already known its value is replaced
+     * but it keeps its place in the order of precedence.
+     * @throws IllegalArgumentException if the pattern is not valid */
+    public void add(String id, Map<String,Object> value) {
+        Entry old = byId.get(id);
+        Entry e = compile(id, old!=null ? old.index : byId.size(), value);
+        Node node = root;
+        String literalStart = literalStart(id.split(":", -1)[0]);
+        for (int i=0; i<literalStart.length(); i++) {
+            Node next = node.children.get(literalStart.charAt(i));
+            if (next==null) {
+                next = new Node();
+                node.children.put(literalStart.charAt(i), next);
+            }
+            node = next;
+        }
+        if (old!=null) node.entries.remove(old);
+        node.entries.add(e);
+        byId.put(id, e);
+    }
+
+    private static Entry compile(String id, int index, Map<String,Object> value) {
+        String[] segments = id.split(":", -1);
+        VersionRange range = null;
+        int globCount = segments.length;
+        if (segments.length>=3 && isVersionRange(segments[2])) {
+            try {
+                range = VersionRange.createFromVersionSpec(segments[2]);
+            } catch (InvalidVersionSpecificationException e) {
+                throw new IllegalArgumentException("Invalid version range in '"+id+"': "+e.getMessage(), e);
+            }
+            globCount = 2;
+        }
+        if (segments.length>3) {
+            throw new IllegalArgumentException("Invalid id pattern '"+id+"'; it should be groupId[:artifactId[:version or version range]]");
+        }
+        Pattern[] globs = new Pattern[globCount];
+        for (int i=0; i<globCount; i++) {
+            // a whole segment of * matches anything, so needn't be tested
+            globs[i] = segments[i].equals("*") ? null : Pattern.compile(globRegex(segments[i]));
+        }
+        return new Entry(id, index, globs, range, value);
+    }
+
+    private static String literalStart(String glob) {
+        for (int i=0; i<glob.length(); i++) {
+            if (glob.charAt(i)=='*' || glob.charAt(i)=='?') return glob.substring(0, i);
+        }
+        return glob;
+    }
+
+    private static String globRegex(String glob) {
+        StringBuilder result = new StringBuilder();
+        int literalStart = 0;
+        for (int i=0; i<glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c=='*' || c=='?') {
+                if (i>literalStart) result.append(Pattern.quote(glob.substring(literalStart, i)));
+                result.append(c=='*' ? ".*" : ".");
+                literalStart = i+1;
+            }
+        }
+        if (glob.length()>literalStart) result.append(Pattern.quote(glob.substring(literalStart)));
+        return result.toString();
+    }
+
+    /** Returns the values of all patterns matching the id, in order of precedence, lowest first
+     * (patterns with fewer segments, then those added first); empty if none. */
+    public List<Map<String,Object>> matching(String id) {
+        if (byId.isEmpty() || id==null) return Collections.emptyList();
+        String[] segments = id.split(":", -1);
+        String group = segments[0];
+        List<Entry> matches = new ArrayList<Entry>();
+        Node node = root;
+        addMatches(node, segments, matches);
+        for (int i=0; i<group.length() && node!=null; i++) {
+            node = node.children.get(group.charAt(i));
+            if (node!=null) addMatches(node, segments, matches);
+        }
+        if (matches.isEmpty()) return Collections.emptyList();
+        Collections.sort(matches, PRECEDENCE);
+        List<Map<String,Object>> result = new ArrayList<Map<String,Object>>(matches.size());
+        for (Entry e: matches) result.add(e.value);
+        return result;
+    }
+
+    private static void addMatches(Node node, String[] segments, List<Entry> matches) {
+        for (Entry e: node.entries) {
+            if (e.matches(segments)) matches.add(e);
+        }
+    }
+
+}
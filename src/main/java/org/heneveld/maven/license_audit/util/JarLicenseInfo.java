@@ -0,0 +1,188 @@
+package org.heneveld.maven.license_audit.util;
+
+import static org.heneveld.maven.license_audit.util.ProjectMetadata.readString;
+import static org.heneveld.maven.license_audit.util.ProjectMetadata.writeString;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.model.License;
+
+/** What an artifact (jar) says about its licensing: the <code>Bundle-License</code> manifest header,
+ * the text of any LICENSE and NOTICE files, and the licenses declared in any POMs embedded in it.
+ * See {@link JarLicenseScanner}. */
+public class JarLicenseInfo {
+
+    static final int FORMAT_VERSION = 1;
+
+    /** the <code>Bundle-License</code> manifest header, or null */
+    public final String bundleLicense;
+    /** the text of LICENSE (and COPYING) files, by entry name */
+    public final Map<String,String> licenseTexts;
+    /** the text of NOTICE files, by entry name */
+    public final Map<String,String> noticeTexts;
+    /** licenses declared in POMs under <code>META-INF/maven</code>, by the id (groupId:artifactId:version) of the POM */
+    public final Map<String,List<License>> embeddedPomLicenses;
+
+    public JarLicenseInfo(String bundleLicense, Map<String,String> licenseTexts, Map<String,String> noticeTexts, Map<String,List<License>> embeddedPomLicenses) {
+        this.bundleLicense = bundleLicense;
+        this.licenseTexts = Collections.unmodifiableMap(new LinkedHashMap<String,String>(licenseTexts));
+        this.noticeTexts = Collections.unmodifiableMap(new LinkedHashMap<String,String>(noticeTexts));
+        this.embeddedPomLicenses = Collections.unmodifiableMap(new LinkedHashMap<String,List<License>>(embeddedPomLicenses));
+    }
+
+    public boolean isEmpty() {
+        return bundleLicense==null && licenseTexts.isEmpty() && noticeTexts.isEmpty() && embeddedPomLicenses.isEmpty();
+    }
+
+    /** Combines this with the info from another artifact of the same project, this taking precedence. */
+    public JarLicenseInfo mergedWith(JarLicenseInfo other) {
+        Map<String,String> licenses = new LinkedHashMap<String,String>(other.licenseTexts);
+        licenses.putAll(licenseTexts);
+        Map<String,String> notices = new LinkedHashMap<String,String>(other.noticeTexts);
+        notices.putAll(noticeTexts);
+        Map<String,List<License>> poms = new LinkedHashMap<String,List<License>>(other.embeddedPomLicenses);
+        poms.putAll(embeddedPomLicenses);
+        return new JarLicenseInfo(bundleLicense!=null ? bundleLicense : other.bundleLicense, licenses, notices, poms);
+    }
+
+    /** The licenses the jar declares for itself (i.e. for the given project):
+     * those in the <code>Bundle-License</code> header, or else those in its own embedded POM; empty if none. */
+    public List<License> getLicenses(String groupId, String artifactId) {
+        List<License> result = parseBundleLicense(bundleLicense);
+        if (!result.isEmpty()) return result;
+        String prefix = groupId+":"+artifactId+":";
+        for (Map.Entry<String,List<License>> pom: embeddedPomLicenses.entrySet()) {
+            if (pom.getKey().startsWith(prefix) && !pom.getValue().isEmpty()) return pom.getValue();
+        }
+        return Collections.emptyList();
+    }
+
+    /** Parses an OSGi <code>Bundle-License</code> header: comma-separated clauses, each a license name (often an SPDX id) or URL,
+     * optionally followed by <code>;description=...</code> and <code>;link=...</code>.
+     * As many bundles give a plain name which itself contains commas, if the clauses don't each look like a license
+     * the whole header is taken as one name. */
+    public static List<License> parseBundleLicense(String header) {
+        if (header==null || header.trim().isEmpty()) return Collections.emptyList();
+        List<String> clauses = splitOutsideQuotes(header, ',');
+        boolean clausesLookValid = true;
+        for (String c: clauses) {
+            String name = splitOutsideQuotes(c, ';').get(0).trim();
+            if (!(c.contains(";") || isUrl(name) || LicenseCodes.lookupCode(name)!=null)) clausesLookValid = false;
+        }
+        if (!clausesLookValid) clauses = Collections.singletonList(header);
+
+        List<License> result = new ArrayList<License>();
+        for (String c: clauses) {
+            List<String> parts = splitOutsideQuotes(c, ';');
+            String name = parts.get(0).trim();
+            // the spec's way of saying the license is described elsewhere
+            if (name.isEmpty() || "<<EXTERNAL>>".equals(name)) continue;
+            String url = null, description = null;
+            for (String attr: parts.subList(1, parts.size())) {
+                int eq = attr.indexOf('=');
+                if (eq<0) continue;
+                String key = attr.substring(0, eq).trim();
+                String value = unquote(attr.substring(eq+1).trim());
+                if ("link".equals(key)) url = value;
+                else if ("description".equals(key)) description = value;
+            }
+            if (isUrl(name)) {
+                if (url==null) url = name;
+                name = description;
+            }
+            License l = LicenseCodes.lookupCode(name);
+            result.add(LicenseCodes.newLicense(l!=null ? l.getName() : name, url!=null ? url : l!=null ? l.getUrl() : null, null));
+        }
+        return result;
+    }
+
+    private static boolean isUrl(String s) {
+        return s.contains("://");
+    }
+
+    private static String unquote(String s) {
+        if (s.length()>=2 && s.startsWith("\"") && s.endsWith("\"")) return s.substring(1, s.length()-1);
+        return s;
+    }
+
+    private static List<String> splitOutsideQuotes(String s, char separator) {
+        List<String> result = new ArrayList<String>();
+        boolean quoted = false;
+        int start = 0;
+        for (int i=0; i<s.length(); i++) {
+            char c = s.charAt(i);
+            if (c=='"') quoted = !quoted;
+            else if (c==separator && !quoted) {
+                result.add(s.substring(start, i));
+                start = i+1;
+            }
+        }
+        result.add(s.substring(start));
+        return result;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, bundleLicense);
+        writeTexts(out, licenseTexts);
+        writeTexts(out, noticeTexts);
+        out.writeInt(embeddedPomLicenses.size());
+        for (Map.Entry<String,List<License>> pom: embeddedPomLicenses.entrySet()) {
+            writeString(out, pom.getKey());
+            out.writeInt(pom.getValue().size());
+            for (License l: pom.getValue()) {
+                writeString(out, l.getName());
+                writeString(out, l.getUrl());
+                writeString(out, l.getComments());
+            }
+        }
+    }
+
+    public static JarLicenseInfo readFrom(DataInput in) throws IOException {
+        int format = in.readInt();
+        if (format!=FORMAT_VERSION) throw new IOException("Unsupported jar license info format "+format);
+        String bundleLicense = readString(in);
+        Map<String,String> licenseTexts = readTexts(in);
+        Map<String,String> noticeTexts = readTexts(in);
+        Map<String,List<License>> poms = new LinkedHashMap<String,List<License>>();
+        for (int i=in.readInt(); i>0; i--) {
+            String id = readString(in);
+            List<License> licenses = new ArrayList<License>();
+            for (int j=in.readInt(); j>0; j--) {
+                licenses.add(LicenseCodes.newLicense(readString(in), readString(in), readString(in)));
+            }
+            poms.put(id, licenses);
+        }
+        return new JarLicenseInfo(bundleLicense, licenseTexts, noticeTexts, poms);
+    }
+
+    private static void writeTexts(DataOutput out, Map<String,String> texts) throws IOException {
+        out.writeInt(texts.size());
+        for (Map.Entry<String,String> t: texts.entrySet()) {
+            writeString(out, t.getKey());
+            writeString(out, t.getValue());
+        }
+    }
+
+    private static Map<String,String> readTexts(DataInput in) throws IOException {
+        Map<String,String> result = new LinkedHashMap<String,String>();
+        for (int i=in.readInt(); i>0; i--) {
+            result.put(readString(in), readString(in));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "JarLicenseInfo[bundleLicense="+bundleLicense+", licenses="+licenseTexts.keySet()+", notices="+noticeTexts.keySet()+
+            ", poms="+embeddedPomLicenses.keySet()+"]";
+    }
+
+}
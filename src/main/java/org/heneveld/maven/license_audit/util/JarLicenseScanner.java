@@ -0,0 +1,207 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.jar.Manifest;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.model.License;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+
+/** Finds what jars say about their licensing ({@link JarLicenseInfo}).
+ * <p>
+ * Only the zip's central directory and the few entries wanted are read ({@link ZipFile} reads the directory
+ * and inflates just the entries asked for), never the classes.
+ * Results are cached by the jar's checksum: in the {@link SessionCache} given, if any, and in files under the cache directory given, if any.
+ * Safe for concurrent use. */
+public class JarLicenseScanner {
+
+    /** the most read of any one file; license texts are rarely more than a few tens of kilobytes */
+    static final int MAX_TEXT_BYTES = 256*1024;
+
+    // LICENSE, LICENSE.txt, license.md, NOTICE, COPYING etc, but not e.g. classes in a license package
+    private static final Pattern LICENSE_FILE = Pattern.compile("(license|licence|copying)([.\\-_][^/]*)?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern NOTICE_FILE = Pattern.compile("notice([.\\-_][^/]*)?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern EMBEDDED_POM = Pattern.compile("META-INF/maven/[^/]+/[^/]+/pom\\.xml");
+
+    private final ChecksumFileStore<JarLicenseInfo> store;
+    private final SessionCache<JarLicenseInfo> sessionCache;
+
+    /** Creates a scanner caching results in the given session cache and directory, either or both of which may be null. */
+    public JarLicenseScanner(File cacheDir, SessionCache<JarLicenseInfo> sessionCache) {
+        this.store = cacheDir==null ? null : new ChecksumFileStore<JarLicenseInfo>(cacheDir, new ChecksumFileStore.Codec<JarLicenseInfo>() {
+            public void write(JarLicenseInfo value, DataOutput out) throws IOException {
+                value.writeTo(out);
+            }
+            public JarLicenseInfo read(DataInput in) throws IOException {
+                return JarLicenseInfo.readFrom(in);
+            }
+        });
+        this.sessionCache = sessionCache;
+    }
+
+    /** Number of jars whose info was found in the cache directory. */
+    public int getHits() {
+        return store==null ? 0 : store.getHits();
+    }
+
+    /** Number of jars which had to be scanned. */
+    public int getMisses() {
+        return store==null ? 0 : store.getMisses();
+    }
+
+    /** Returns the info for the jar, from a cache if possible. */
+    public JarLicenseInfo scan(final File jar) throws IOException {
+        final String checksum = checksum(jar);
+        if (sessionCache==null) return scanUsingCacheDir(jar, checksum);
+        try {
+            return sessionCache.get(checksum, new Callable<JarLicenseInfo>() {
+                public JarLicenseInfo call() throws IOException {
+                    return scanUsingCacheDir(jar, checksum);
+                }
+            });
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+    }
+
+    /** Scans all the given jars, using the given number of threads, returning the info for each in the same order;
+     * any which cannot be read are instead put in <code>errors</code>. */
+    public Map<File,JarLicenseInfo> scanAll(List<File> jars, int threads, Map<File,IOException> errors) throws InterruptedException {
+        Map<File,Future<JarLicenseInfo>> scans = new LinkedHashMap<File,Future<JarLicenseInfo>>();
+        ExecutorService executor = ThreadPools.newBoundedExecutor(threads);
+        try {
+            for (final File jar: jars) {
+                if (scans.containsKey(jar)) continue;
+                scans.put(jar, executor.submit(new Callable<JarLicenseInfo>() {
+                    public JarLicenseInfo call() throws IOException {
+                        return scan(jar);
+                    }
+                }));
+            }
+            Map<File,JarLicenseInfo> result = new LinkedHashMap<File,JarLicenseInfo>();
+            for (Map.Entry<File,Future<JarLicenseInfo>> scan: scans.entrySet()) {
+                try {
+                    result.put(scan.getKey(), scan.getValue().get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) errors.put(scan.getKey(), (IOException) e.getCause());
+                    else if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                    else throw new IllegalStateException("Error scanning "+scan.getKey()+": "+e.getCause(), e.getCause());
+                }
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    protected JarLicenseInfo scanUsingCacheDir(File jar, String checksum) throws IOException {
+        if (store==null) return scanUncached(jar);
+        String path = checksum.substring(0, 2)+"/"+checksum+".bin";
+        JarLicenseInfo result = store.get(path, checksum);
+        if (result!=null) return result;
+        result = scanUncached(jar);
+        try {
+            store.put(path, checksum, result);
+        } catch (IOException e) {
+            // can't be stored, e.g. the directory is read-only; the jar was scanned, and will be scanned again next time
+        }
+        return result;
+    }
+
+    /** Reads the license info from the jar, without caching. */
+    public static JarLicenseInfo scanUncached(File jar) throws IOException {
+        String bundleLicense = null;
+        Map<String,String> licenses = new LinkedHashMap<String,String>();
+        Map<String,String> notices = new LinkedHashMap<String,String>();
+        Map<String,List<License>> poms = new LinkedHashMap<String,List<License>>();
+        try (ZipFile zip = new ZipFile(jar)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry e = entries.nextElement();
+                if (e.isDirectory()) continue;
+                String name = e.getName();
+                String baseName = name.startsWith("META-INF/") ? name.substring("META-INF/".length()) : name;
+                if (baseName.indexOf('/')<0) {
+                    if (LICENSE_FILE.matcher(baseName).matches()) licenses.put(name, readText(zip, e));
+                    else if (NOTICE_FILE.matcher(baseName).matches()) notices.put(name, readText(zip, e));
+                    else if ("MANIFEST.MF".equals(baseName) && name.startsWith("META-INF/")) {
+                        try (InputStream in = zip.getInputStream(e)) {
+                            bundleLicense = new Manifest(in).getMainAttributes().getValue("Bundle-License");
+                        }
+                    }
+                } else if (EMBEDDED_POM.matcher(name).matches()) {
+                    try (InputStream in = zip.getInputStream(e)) {
+                        Model m = new MavenXpp3Reader().read(in, false);
+                        String groupId = m.getGroupId()!=null || m.getParent()==null ? m.getGroupId() : m.getParent().getGroupId();
+                        String version = m.getVersion()!=null || m.getParent()==null ? m.getVersion() : m.getParent().getVersion();
+                        List<License> ll = new ArrayList<License>();
+                        for (License l: m.getLicenses()) ll.add(LicenseCodes.newLicense(l.getName(), l.getUrl(), l.getComments()));
+                        poms.put(groupId+":"+m.getArtifactId()+":"+version, ll);
+                    } catch (Exception ex) {
+                        // not a pom we can read; ignore it, as maven would never have used it
+                    }
+                }
+            }
+        }
+        return new JarLicenseInfo(bundleLicense, licenses, notices, poms);
+    }
+
+    private static String readText(ZipFile zip, ZipEntry e) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(e.getSize()>0 && e.getSize()<MAX_TEXT_BYTES ? (int) e.getSize() : 8192);
+        try (InputStream in = zip.getInputStream(e)) {
+            byte[] buf = new byte[8192];
+            int n;
+            while (bytes.size()<MAX_TEXT_BYTES && (n = in.read(buf, 0, Math.min(buf.length, MAX_TEXT_BYTES-bytes.size())))>0) {
+                bytes.write(buf, 0, n);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /** Returns the SHA-1 of the jar: from the <code>.sha1</code> file maven keeps beside it if there is one,
+     * otherwise computed from the file (memory-mapped, so not copied through the heap). */
+    public static String checksum(File jar) throws IOException {
+        File sha1File = new File(jar.getPath()+".sha1");
+        if (sha1File.exists()) {
+            String sha1 = new String(Files.readAllBytes(sha1File.toPath()), StandardCharsets.US_ASCII).trim();
+            // sometimes followed by the file name
+            if (sha1.length()>=40) sha1 = sha1.substring(0, 40).toLowerCase();
+            if (sha1.matches("[0-9a-f]{40}")) return sha1;
+        }
+        MessageDigest digest = Checksums.newDigest("SHA-1");
+        try (FileChannel channel = FileChannel.open(jar.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            // mapped in chunks, as a single mapping is limited to 2GB
+            for (long position=0; position<size; position+=Integer.MAX_VALUE) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(Integer.MAX_VALUE, size-position));
+                digest.update(buffer);
+            }
+        }
+        return Checksums.toHex(digest);
+    }
+
+}
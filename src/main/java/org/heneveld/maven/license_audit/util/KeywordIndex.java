@@ -0,0 +1,107 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/** Finds which of a list of entries might apply to a string, by the keywords they were given:
+ * an entry is a candidate if the string contains any of its keywords, or if it has no keywords.
+ * <p>
+ * All keywords are found in a single pass over the string (Aho-Corasick),
+ * so the cost does not grow with the number of entries or keywords.
+ * Immutable once built, so safe for concurrent use. */
+public final class KeywordIndex {
+
+    // the trie of keywords: transitions, failure links (longest proper suffix which is also in the trie),
+    // and the entries any of whose keywords end at each node (including via failure links)
+    private final List<Map<Character,Integer>> transitions = new ArrayList<Map<Character,Integer>>();
+    private final int[] failures;
+    private final BitSet[] outputs;
+    private final BitSet always = new BitSet();
+
+    /** Creates an index where entry <code>i</code> has the keywords at index <code>i</code>
+     * (none, or null, meaning it is always a candidate). */
+    public KeywordIndex(List<? extends Collection<String>> keywordsByEntry) {
+        transitions.add(new HashMap<Character,Integer>());
+        List<BitSet> outs = new ArrayList<BitSet>();
+        outs.add(null);
+        for (int i=0; i<keywordsByEntry.size(); i++) {
+            Collection<String> keywords = keywordsByEntry.get(i);
+            if (keywords==null || keywords.isEmpty()) {
+                always.set(i);
+                continue;
+            }
+            for (String k: keywords) {
+                if (k.isEmpty()) {
+                    always.set(i);
+                    continue;
+                }
+                int node = 0;
+                for (int j=0; j<k.length(); j++) {
+                    Integer next = transitions.get(node).get(k.charAt(j));
+                    if (next==null) {
+                        next = transitions.size();
+                        transitions.add(new HashMap<Character,Integer>());
+                        outs.add(null);
+                        transitions.get(node).put(k.charAt(j), next);
+                    }
+                    node = next;
+                }
+                if (outs.get(node)==null) outs.set(node, new BitSet());
+                outs.get(node).set(i);
+            }
+        }
+
+        failures = new int[transitions.size()];
+        outputs = outs.toArray(new BitSet[outs.size()]);
+        // breadth first, so the failure of each node is known before its children's
+        Queue<Integer> queue = new ArrayDeque<Integer>(transitions.get(0).values());
+        while (!queue.isEmpty()) {
+            int node = queue.remove();
+            for (Map.Entry<Character,Integer> t: transitions.get(node).entrySet()) {
+                int child = t.getValue();
+                if (node!=0) {
+                    int f = failures[node];
+                    while (true) {
+                        Integer target = transitions.get(f).get(t.getKey());
+                        if (target!=null) {
+                            failures[child] = target;
+                            break;
+                        }
+                        if (f==0) break;
+                        f = failures[f];
+                    }
+                }
+                BitSet inherited = outputs[failures[child]];
+                if (inherited!=null) {
+                    if (outputs[child]==null) outputs[child] = new BitSet();
+                    outputs[child].or(inherited);
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    /** Returns the entries which are candidates for the given string, as a new set of their indices. */
+    public BitSet candidates(CharSequence s) {
+        BitSet result = (BitSet) always.clone();
+        int node = 0;
+        for (int i=0; i<s.length(); i++) {
+            char c = s.charAt(i);
+            Integer next = transitions.get(node).get(c);
+            while (next==null && node!=0) {
+                node = failures[node];
+                next = transitions.get(node).get(c);
+            }
+            node = next==null ? 0 : next;
+            if (outputs[node]!=null) result.or(outputs[node]);
+        }
+        return result;
+    }
+
+}
@@ -1,8 +1,16 @@
 package org.heneveld.maven.license_audit.util;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 import org.apache.maven.model.License;
 import org.eclipse.sisu.Nullable;
@@ -11,10 +19,59 @@ public class LicenseCodes {
 
     final static Map<String,String> KNOWN_LICENSE_CODES_WITH_REGEX = new LinkedHashMap<String, String>();
     final static Map<String,License> KNOWN_LICENSE_CODES_WITH_LICENSE = new LinkedHashMap<String, License>();
+    // the regexes above, compiled once, in the same order
+    final static Map<String,Pattern> KNOWN_LICENSE_CODES_WITH_PATTERN = new LinkedHashMap<String, Pattern>();
+    // words at least one of which is in anything the pattern matches (lower case), or empty if not known
+    final static Map<String,Set<String>> KNOWN_LICENSE_CODES_WITH_KEYWORDS = new LinkedHashMap<String, Set<String>>();
+    // other URLs by which codes are known, in addition to those of the licenses above
+    final static Map<String,String> KNOWN_LICENSE_CODES_WITH_URL = new LinkedHashMap<String, String>();
+    // the above as arrays, with an index to find the candidate patterns for a string, and codes by normalized URL;
+    // rebuilt when codes are added
+    private static volatile CompiledCodes compiledCodes;
     
+    private static final Pattern NO_LICENSE_PATTERN = Pattern.compile("<no[ a-z]*>");
+    
+    /** Maximum number of license strings whose codes are remembered. */
+    static final int MEMO_SIZE = 4096;
+    // codes by normalized license string, least recently used dropped first;
+    // the same few strings recur across a graph, and matching the regexes is slow
+    private static final Map<String,String> MEMO = new LinkedHashMap<String,String>(256, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String,String> eldest) {
+            return size() > MEMO_SIZE;
+        }
+    };
+    // stored in the memo for strings which have no code, as null means not remembered,
+    // and in the URL index for URLs of more than one license
+    private static final String NO_CODE = new String("<no code>");
+    private static final AtomicLong memoHits = new AtomicLong();
+    private static final AtomicLong memoMisses = new AtomicLong();
+    
+    /** As {@link #addCodeWithRegex(String, License, String, String...)} with no keywords,
+     * so the regex is tried on every string. */
     protected static void addCodeWithRegex(String code, License l, String regex) {
+        addCodeWithRegex(code, l, regex, new String[0]);
+    }
+    
+    /** Registers a license code with a regex for the (lower case) names it is known by,
+     * and keywords one of which must appear in any name it matches, so that it is only tried on such names;
+     * with no keywords the regex is tried on every name. The code itself is always a keyword, as it is always matched. */
+    protected static synchronized void addCodeWithRegex(String code, License l, String regex, String ...keywords) {
         KNOWN_LICENSE_CODES_WITH_LICENSE.put(code, l);
-        if (regex!=null) KNOWN_LICENSE_CODES_WITH_REGEX.put(code, regex.toLowerCase());
+        if (regex!=null) {
+            KNOWN_LICENSE_CODES_WITH_REGEX.put(code, regex.toLowerCase());
+            KNOWN_LICENSE_CODES_WITH_PATTERN.put(code, Pattern.compile(regex.toLowerCase()));
+            Set<String> kk = new LinkedHashSet<String>();
+            if (keywords.length>0) {
+                kk.add(code.toLowerCase());
+                for (String k: keywords) kk.add(k.toLowerCase());
+            }
+            KNOWN_LICENSE_CODES_WITH_KEYWORDS.put(code, kk);
+        }
+        compiledCodes = null;
+        // earlier answers may have changed
+        clearMemo();
     }
         
     protected static String optionally(String pattern) {
@@ -52,7 +109,7 @@ public class LicenseCodes {
         return result;
     }
 
-    protected static String licenseNameRegex(String code, String namePattern, @Nullable String version, boolean allowUnversioned) {
+    protected static String codeWithoutVersion(String code, @Nullable String version) {
         String codeWithoutVersion = code;
         if (version!=null) {
             for (int i=0; i<code.length(); i++) {
@@ -63,6 +120,28 @@ public class LicenseCodes {
                 }
             }
         }
+        return codeWithoutVersion;
+    }
+    
+    /** Returns the text every match of the pattern must start with, or empty if there isn't any (or it can't tell). */
+    protected static String literalPrefix(String pattern) {
+        int depth = 0;
+        for (int i=0; i<pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c=='(') depth++;
+            else if (c==')') depth--;
+            else if (c=='\\') i++;
+            else if (c=='|' && depth==0) return "";
+        }
+        int i = 0;
+        while (i<pattern.length() && ".[]()*+?{}|\\^$".indexOf(pattern.charAt(i))<0) i++;
+        // a quantifier applies to the character before it
+        if (i<pattern.length() && "*+?{".indexOf(pattern.charAt(i))>=0) i = Math.max(0, i-1);
+        return pattern.substring(0, i);
+    }
+
+    protected static String licenseNameRegex(String code, String namePattern, @Nullable String version, boolean allowUnversioned) {
+        String codeWithoutVersion = codeWithoutVersion(code, version);
         String optionalParenthesizedCode = optionally(SEPARATOR_PATTERN + 
             "\\(?"+codeWithoutVersion+(version==null || version.isEmpty() ? "" : optionally(version(version)))+"\\)?");
         return
@@ -88,7 +167,20 @@ public class LicenseCodes {
         addCodeFromMainNamePattern(code, version, name, url, mainName, false);
     }
     public static void addCodeFromMainNamePattern(String code, String version, String name, String url, String mainName, boolean allowUnversioned) {
-        addCodeWithRegex(code, newLicense(name, url, null), licenseNameRegex(code, theLicense(mainName), version, allowUnversioned));        
+        String prefix = literalPrefix(mainName);
+        addCodeFromMainNamePattern(code, version, name, url, mainName, allowUnversioned, prefix.isEmpty() ? null : new String[] { prefix });
+    }
+    /** As {@link #addCodeFromMainNamePattern(String, String, String, String, String, boolean)},
+     * with words one of which must appear in anything <code>mainName</code> matches; if null the regex is tried on every name. */
+    protected static void addCodeFromMainNamePattern(String code, String version, String name, String url, String mainName, boolean allowUnversioned, @Nullable String[] mainNameKeywords) {
+        String[] keywords = new String[0];
+        if (mainNameKeywords!=null) {
+            // names match either the code (without version) or the main name
+            keywords = new String[mainNameKeywords.length+1];
+            keywords[0] = codeWithoutVersion(code, version);
+            System.arraycopy(mainNameKeywords, 0, keywords, 1, mainNameKeywords.length);
+        }
+        addCodeWithRegex(code, newLicense(name, url, null), licenseNameRegex(code, theLicense(mainName), version, allowUnversioned), keywords);
     }
 
     // see http://opensource.org/licenses
@@ -104,7 +196,7 @@ public class LicenseCodes {
     
     static {
         addCodeFromMainNamePattern("Apache-2.0", "2.0", "Apache License, version 2.0", "http://www.apache.org/licenses/LICENSE-2.0",  
-            oneOrMore("ALv2", "apache"+anyNumberOf(anyOf(" public", " software")), "asl"), true);
+            oneOrMore("ALv2", "apache"+anyNumberOf(anyOf(" public", " software")), "asl"), true, new String[] { "alv2", "apache", "asl" });
         
         addCodeFromMainNamePattern("EPL-1.0", "1.0", "Eclipse Public License, version 1.0", "http://www.eclipse.org/legal/epl-v10.html",  
             "eclipse"+anyNumberOf(anyOf(" public", " software")), false);
@@ -132,11 +224,11 @@ public class LicenseCodes {
             "gnu"+anyNumberOf(anyOf(" general", " public")));
 
         addCodeFromMainNamePattern("LGPL-3.0", "3.0", "GNU Lesser General Public License, version 3.0", "http://www.gnu.org/licenses/lgpl-3.0.html",  
-            orReversed("lesser", " ", "gnu")+anyNumberOf(anyOf(" general", " public")), true);
+            orReversed("lesser", " ", "gnu")+anyNumberOf(anyOf(" general", " public")), true, new String[] { "gnu" });
         addCodeFromMainNamePattern("LGPL-2.1", "2.1", "GNU Lesser General Public License, version 2.1", "http://www.gnu.org/licenses/lgpl-2.0.html",  
-            orReversed("lesser", " ", "gnu")+anyNumberOf(anyOf(" general", " public")));
+            orReversed("lesser", " ", "gnu")+anyNumberOf(anyOf(" general", " public")), false, new String[] { "gnu" });
         addCodeFromMainNamePattern("LGPL-2.0", "2.0", "GNU Lesser General Public License, version 2.0", "http://www.gnu.org/licenses/lgpl-2.0.html",  
-            orReversed("lesser", " ", "gnu")+anyNumberOf(anyOf(" general", " public")));
+            orReversed("lesser", " ", "gnu")+anyNumberOf(anyOf(" general", " public")), false, new String[] { "gnu" });
 
         addCodeFromMainNamePattern("MPL-2.0", "2.0", "Mozilla Public License, version 2.0", "https://www.mozilla.org/MPL/2.0/",  
             "mozilla"+anyNumberOf(anyOf(" public", " software")), true);
@@ -149,11 +241,89 @@ public class LicenseCodes {
         String bsd3Padding = anyNumberOf(anyOf(bsdPadding, bsd3Words));
         String bsd2Padding = anyNumberOf(anyOf(bsdPadding, bsd2Words));
         addCodeWithRegex("BSD-3-Clause", newLicense("BSD 3-Clause (New BSD) License", "https://spdx.org/licenses/BSD-3-Clause.html", null),
-            bsd3Padding+theLicense(bsd3Padding+orReversed("bsd", SEPARATOR_PATTERN, bsd3Words)+bsd3Padding)+bsd3Padding);
+            bsd3Padding+theLicense(bsd3Padding+orReversed("bsd", SEPARATOR_PATTERN, bsd3Words)+bsd3Padding)+bsd3Padding, "bsd");
         addCodeWithRegex("BSD-2-Clause", newLicense("BSD 2-Clause (Simplified or FreeBSD) License", "https://spdx.org/licenses/BSD-2-Clause.html", null),
-            bsd2Padding+theLicense(bsd2Padding+anyOf("freebsd", orReversed("bsd", SEPARATOR_PATTERN, bsd2Words))+bsd2Padding)+bsd2Padding);
+            bsd2Padding+theLicense(bsd2Padding+anyOf("freebsd", orReversed("bsd", SEPARATOR_PATTERN, bsd2Words))+bsd2Padding)+bsd2Padding, "bsd");
 //        addCodeWithRegex("BSD", newLicense("BSD License", "https://spdx.org/licenses/BSD-2-Clause.html", null),
 //            bsdPadding+theLicense(bsdPadding+"bsd"+bsdPadding)+bsdPadding+optionally(NO_VERSION_REGEX));
+        
+        // commonly used URLs which aren't those above or in the SPDX list
+        addCodeUrl("Apache-2.0", "http://opensource.org/licenses/apache2.0");
+        addCodeUrl("MIT", "http://www.opensource.org/licenses/mit-license.php");
+        addCodeUrl("EPL-1.0", "http://www.eclipse.org/org/documents/epl-v10");
+        addCodeUrl("EPL-2.0", "https://www.eclipse.org/legal/epl-v20.html");
+        addCodeUrl("CDDL-1.0", "https://glassfish.dev.java.net/public/CDDLv1.0.html");
+        addCodeUrl("LGPL-2.1", "http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html");
+        addCodeUrl("GPL-2.0", "http://www.gnu.org/licenses/old-licenses/gpl-2.0.html");
+    }
+    
+    /** Records another URL by which a code is known, in addition to that of its license. */
+    public static synchronized void addCodeUrl(String code, String url) {
+        KNOWN_LICENSE_CODES_WITH_URL.put(url, code);
+        compiledCodes = null;
+        clearMemo();
+    }
+    
+    /** Returns the URL in a form which ignores differences that don't matter for identifying a license:
+     * the scheme, <code>www.</code>, case, trailing slashes, and <code>.txt</code>, <code>.html</code> (or <code>.htm</code>) and <code>.php</code> suffixes. */
+    public static String normalizeUrl(String url) {
+        String result = url.trim().toLowerCase();
+        int scheme = result.indexOf("://");
+        if (scheme>=0) result = result.substring(scheme+3);
+        if (result.startsWith("www.")) result = result.substring(4);
+        result = withoutTrailingSlashes(result);
+        for (String suffix: new String[] { ".txt", ".html", ".htm", ".php" }) {
+            if (result.endsWith(suffix)) {
+                result = withoutTrailingSlashes(result.substring(0, result.length()-suffix.length()));
+                break;
+            }
+        }
+        return result;
+    }
+    
+    private static String withoutTrailingSlashes(String s) {
+        int end = s.length();
+        while (end>0 && s.charAt(end-1)=='/') end--;
+        return s.substring(0, end);
+    }
+    
+    private static boolean looksLikeUrl(String s) {
+        return (s.contains("://") || s.startsWith("www.")) && s.indexOf(' ')<0;
+    }
+    
+    /** Returns the code for a license at the given URL, our own codes taking precedence over SPDX ids,
+     * or null if the URL isn't known (or is that of more than one license). */
+    public static String getLicenseCodeFromUrl(String url) {
+        if (url==null || url.isEmpty()) return null;
+        String key = normalizeUrl(url);
+        String result = getCompiledCodes().codesByUrl.get(key);
+        if (result!=null) return result==NO_CODE ? null : result;
+        return codeFor(SpdxLicenses.get().byUrl(url));
+    }
+    
+    /** Returns the code for the license from its name (as {@link #getLicenseCode(String)}, so empty if it looks like there is no license info),
+     * or if that gives no code, from its URL if that is known, unless the name says it is something more than the license at the URL
+     * (e.g. with an exception, or one of several licenses, as a URL for one part would misreport it). */
+    public static String getLicenseCode(License license) {
+        if (license==null) return null;
+        String result = getLicenseCode(license.getName());
+        if (result!=null && !result.isEmpty()) return result;
+        if (result==null && NAMES_MORE_THAN_ONE_LICENSE.matcher(license.getName().toLowerCase()).find()) return null;
+        String fromUrl = getLicenseCodeFromUrl(license.getUrl());
+        return fromUrl!=null ? fromUrl : result;
+    }
+    
+    // names of combined or modified licenses, which a URL (of one of the parts) does not identify
+    private static final Pattern NAMES_MORE_THAN_ONE_LICENSE = Pattern.compile("exception|\\+|&|\\b(and|or|with|plus|dual)\\b");
+    
+    /** Our code for an SPDX license: its id, unless it is the <code>-only</code> form of one of our codes. */
+    private static String codeFor(SpdxLicenses.Entry spdx) {
+        if (spdx==null) return null;
+        if (spdx.id.endsWith("-only")) {
+            String code = spdx.id.substring(0, spdx.id.length()-"-only".length());
+            if (KNOWN_LICENSE_CODES_WITH_LICENSE.containsKey(code)) return code;
+        }
+        return spdx.id;
     }
     
     public static Map<String, String> getKnownLicenseCodesWithRegexes() {
@@ -167,18 +337,113 @@ public class LicenseCodes {
         if (licenseSummary==null || licenseSummary.length()==0) return "";
         
         String ls = licenseSummary.toLowerCase().trim();
-        if (ls.matches("<no[ a-z]*>")) return "";
+        String result;
+        synchronized (MEMO) {
+            result = MEMO.get(ls);
+        }
+        if (result!=null) {
+            memoHits.incrementAndGet();
+            return result==NO_CODE ? null : result;
+        }
+        memoMisses.incrementAndGet();
+        
+        result = getLicenseCodeUncached(ls);
+        synchronized (MEMO) {
+            MEMO.put(ls, result==null ? NO_CODE : result);
+        }
+        return result;
+    }
+    
+    /** As {@link #getLicenseCode(String)}, for a string already lower-cased and trimmed, always matching;
+     * only the patterns whose keywords are in the string are tried, but in the order they were added, so the first match wins as before.
+     * If none match, the SPDX license list is consulted. */
+    static String getLicenseCodeUncached(String ls) {
+        if (NO_LICENSE_PATTERN.matcher(ls).matches()) return "";
+        if (looksLikeUrl(ls)) {
+            String result = getLicenseCodeFromUrl(ls);
+            if (result!=null) return result;
+        }
 
-        for (Map.Entry<String,String> l: KNOWN_LICENSE_CODES_WITH_REGEX.entrySet()) {
-            if (ls.matches(l.getValue())) return l.getKey();
-            if (ls.equals(l.getKey().toLowerCase())) return l.getKey();
+        CompiledCodes cc = getCompiledCodes();
+        BitSet candidates = cc.index.candidates(ls);
+        for (int i=candidates.nextSetBit(0); i>=0; i=candidates.nextSetBit(i+1)) {
+            if (cc.patterns[i].matcher(ls).matches()) return cc.codes[i];
+            if (ls.equals(cc.codes[i].toLowerCase())) return cc.codes[i];
+        }
+        
+        return codeFor(SpdxLicenses.get().lookup(ls));
+    }
+    
+    /** The registered patterns, in order, the index of their keywords, and codes by normalized URL. */
+    private static class CompiledCodes {
+        final String[] codes;
+        final Pattern[] patterns;
+        final KeywordIndex index;
+        final Map<String,String> codesByUrl;
+        CompiledCodes(String[] codes, Pattern[] patterns, KeywordIndex index, Map<String,String> codesByUrl) {
+            this.codes = codes;
+            this.patterns = patterns;
+            this.index = index;
+            this.codesByUrl = codesByUrl;
+        }
+    }
+    
+    private static CompiledCodes getCompiledCodes() {
+        CompiledCodes result = compiledCodes;
+        if (result!=null) return result;
+        synchronized (LicenseCodes.class) {
+            if (compiledCodes==null) {
+                List<String> codes = new ArrayList<String>(KNOWN_LICENSE_CODES_WITH_PATTERN.keySet());
+                Pattern[] patterns = new Pattern[codes.size()];
+                List<Set<String>> keywords = new ArrayList<Set<String>>();
+                for (int i=0; i<codes.size(); i++) {
+                    patterns[i] = KNOWN_LICENSE_CODES_WITH_PATTERN.get(codes.get(i));
+                    keywords.add(KNOWN_LICENSE_CODES_WITH_KEYWORDS.get(codes.get(i)));
+                }
+                Map<String,String> codesByUrl = new HashMap<String,String>();
+                for (Map.Entry<String,License> l: KNOWN_LICENSE_CODES_WITH_LICENSE.entrySet()) {
+                    if (l.getValue().getUrl()!=null) putUrl(codesByUrl, l.getValue().getUrl(), l.getKey());
+                }
+                for (Map.Entry<String,String> u: KNOWN_LICENSE_CODES_WITH_URL.entrySet()) {
+                    putUrl(codesByUrl, u.getKey(), u.getValue());
+                }
+                compiledCodes = new CompiledCodes(codes.toArray(new String[codes.size()]), patterns, new KeywordIndex(keywords), codesByUrl);
+            }
+            return compiledCodes;
+        }
+    }
+    
+    // a URL given for two codes identifies neither
+    private static void putUrl(Map<String,String> codesByUrl, String url, String code) {
+        String key = normalizeUrl(url);
+        String old = codesByUrl.get(key);
+        codesByUrl.put(key, old==null || old.equals(code) ? code : NO_CODE);
+    }
+    
+    /** Number of calls to {@link #getLicenseCode(String)} answered from memory, without matching. */
+    public static long getMemoHits() {
+        return memoHits.get();
+    }
+    
+    /** Number of calls to {@link #getLicenseCode(String)} which had to match the license regexes. */
+    public static long getMemoMisses() {
+        return memoMisses.get();
+    }
+    
+    /** Forgets all remembered codes (but not the hit and miss counts). */
+    public static void clearMemo() {
+        synchronized (MEMO) {
+            MEMO.clear();
         }
-        return null;
     }
 
+    /** Returns the license for a known code, or for an SPDX license id (ignoring case), or null. */
     public static License lookupCode(String code) {
         if (code==null) return null;
-        return KNOWN_LICENSE_CODES_WITH_LICENSE.get(code.trim());
+        License result = KNOWN_LICENSE_CODES_WITH_LICENSE.get(code.trim());
+        if (result!=null) return result;
+        SpdxLicenses.Entry spdx = SpdxLicenses.get().byId(code);
+        return spdx==null ? null : spdx.toLicense();
     }
 
 }
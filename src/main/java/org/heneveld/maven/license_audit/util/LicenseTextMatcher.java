@@ -0,0 +1,215 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Identifies the license a text (e.g. a LICENSE file) is, by comparing it with characteristic passages
+ * of the licenses {@link LicenseCodes} knows, as bundled in <code>license-texts.txt</code>.
+ * <p>
+ * Texts are compared as sets of shingles (hashes of each run of {@link #SHINGLE_WORDS} words, ignoring case, punctuation and numbering).
+ * The shingles of all the passages are computed once, into an index from shingle to the passages containing it,
+ * so matching a text is a single pass over its shingles whatever the number of passages.
+ * A passage's score is the fraction of its shingles found in the text, so a text which contains a passage
+ * (as well as other things, e.g. a copyright line or another license appended) still matches it.
+ * <p>
+ * Immutable once built, so safe for concurrent use. */
+public final class LicenseTextMatcher {
+
+    static final String RESOURCE = "license-texts.txt";
+    static final int SHINGLE_WORDS = 4;
+    /** the score a passage must reach for a text to be identified as its license, unless another threshold is given */
+    public static final double DEFAULT_MIN_SCORE = 0.6;
+
+    /** A text identified as a license. */
+    public static final class Match {
+        public final String code;
+        /** the fraction of the passage for the license found in the text, from 0 to 1 */
+        public final double score;
+        final int shinglesMatched;
+
+        Match(String code, double score, int shinglesMatched) {
+            this.code = code;
+            this.score = score;
+            this.shinglesMatched = shinglesMatched;
+        }
+
+        @Override
+        public String toString() {
+            return code+" ("+Math.round(score*100)+"%)";
+        }
+    }
+
+    private final List<String> codes = new ArrayList<String>();
+    private final List<Integer> sizes = new ArrayList<Integer>();
+    // for each shingle, the passages containing it
+    private final Map<Long,int[]> passagesByShingle = new HashMap<Long,int[]>();
+
+    private static class Holder {
+        static final LicenseTextMatcher INSTANCE = load();
+    }
+
+    /** Returns the matcher for the bundled passages, reading them if this is the first use. */
+    public static LicenseTextMatcher get() {
+        return Holder.INSTANCE;
+    }
+
+    private static LicenseTextMatcher load() {
+        InputStream in = LicenseTextMatcher.class.getResourceAsStream(RESOURCE);
+        if (in==null) throw new IllegalStateException("Missing resource "+RESOURCE);
+        try {
+            try {
+                return read(new InputStreamReader(in, StandardCharsets.UTF_8));
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read "+RESOURCE+": "+e, e);
+        }
+    }
+
+    /** Reads passages in the format of the bundled ones: each starting with a line <code>== code</code>,
+     * with comments starting <code>#</code> before the first. */
+    static LicenseTextMatcher read(Reader reader) throws IOException {
+        BufferedReader r = new BufferedReader(reader);
+        List<String> codes = new ArrayList<String>();
+        List<String> texts = new ArrayList<String>();
+        StringBuilder text = null;
+        String line;
+        while ((line = r.readLine())!=null) {
+            if (line.startsWith("== ")) {
+                if (text!=null) texts.add(text.toString());
+                codes.add(line.substring(3).trim());
+                text = new StringBuilder();
+            } else if (text!=null) {
+                text.append(line).append('\n');
+            } else if (!line.startsWith("#") && !line.trim().isEmpty()) {
+                throw new IOException("Invalid line before first license passage: "+line);
+            }
+        }
+        if (text!=null) texts.add(text.toString());
+        LicenseTextMatcher result = new LicenseTextMatcher();
+        for (int i=0; i<codes.size(); i++) result.addPassage(codes.get(i), texts.get(i));
+        return result;
+    }
+
+    LicenseTextMatcher() {}
+
+    private void addPassage(String code, String text) {
+        long[] shingles = shingles(text);
+        if (shingles.length==0) return;
+        int passage = codes.size();
+        codes.add(code);
+        sizes.add(shingles.length);
+        for (long s: shingles) {
+            int[] old = passagesByShingle.get(s);
+            int[] passages = old==null ? new int[1] : Arrays.copyOf(old, old.length+1);
+            passages[passages.length-1] = passage;
+            passagesByShingle.put(s, passages);
+        }
+    }
+
+    /** The number of passages known. */
+    public int size() {
+        return codes.size();
+    }
+
+    /** The code of each passage known, in the order they were read. */
+    public List<String> getCodes() {
+        return Collections.unmodifiableList(codes);
+    }
+
+    /** Returns the license the text is, if a passage scores at least {@link #DEFAULT_MIN_SCORE}, else null. */
+    public Match match(String text) {
+        return match(text, DEFAULT_MIN_SCORE);
+    }
+
+    /** Returns the license the text is, if a passage scores at least the given threshold, else null.
+     * Where several do, the one with more of its text found is preferred, so a text matching both a license
+     * and a shorter license it extends (e.g. BSD 3-clause and 2-clause) is identified as the longer;
+     * where about the same is found, the higher score is preferred. */
+    public Match match(String text, double minScore) {
+        List<Match> matches = matches(text, minScore);
+        Match best = null;
+        for (Match m: matches) {
+            if (best==null || isBetter(m, best)) best = m;
+        }
+        return best;
+    }
+
+    private static boolean isBetter(Match m, Match than) {
+        int more = Math.max(m.shinglesMatched, than.shinglesMatched), fewer = Math.min(m.shinglesMatched, than.shinglesMatched);
+        // within 10% counts as about the same
+        if (more*10 > fewer*11) return m.shinglesMatched > than.shinglesMatched;
+        return m.score > than.score;
+    }
+
+    /** Returns a match for every passage scoring at least the given threshold, in the order they are bundled. */
+    public List<Match> matches(String text, double minScore) {
+        if (text==null) return Collections.emptyList();
+        int[] counts = new int[codes.size()];
+        for (long s: shingles(text)) {
+            int[] passages = passagesByShingle.get(s);
+            if (passages!=null) for (int p: passages) counts[p]++;
+        }
+        List<Match> result = new ArrayList<Match>();
+        for (int p=0; p<counts.length; p++) {
+            if (counts[p]==0) continue;
+            double score = (double) counts[p] / sizes.get(p);
+            if (score>=minScore) result.add(new Match(codes.get(p), score, counts[p]));
+        }
+        return result;
+    }
+
+    /** The distinct shingles in the text, sorted. Words are runs of letters and digits, lower-cased,
+     * and single characters (list numbering, and "a") are ignored. */
+    static long[] shingles(String text) {
+        long[] words = new long[16];
+        int n = 0;
+        int start = -1;
+        for (int i=0; i<=text.length(); i++) {
+            boolean letter = i<text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start<0) start = i;
+            else if (!letter && start>=0) {
+                if (i-start>1) {
+                    if (n==words.length) words = Arrays.copyOf(words, n*2);
+                    words[n++] = wordHash(text, start, i);
+                }
+                start = -1;
+            }
+        }
+        if (n<SHINGLE_WORDS) return new long[0];
+        long[] result = new long[n-SHINGLE_WORDS+1];
+        for (int i=0; i<result.length; i++) {
+            long h = 0;
+            for (int j=0; j<SHINGLE_WORDS; j++) h = h*0x100000001b3L + words[i+j];
+            result[i] = h;
+        }
+        Arrays.sort(result);
+        int distinct = 0;
+        for (int i=0; i<result.length; i++) {
+            if (distinct==0 || result[i]!=result[distinct-1]) result[distinct++] = result[i];
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+
+    // FNV-1a of the lower-cased word
+    private static long wordHash(String text, int start, int end) {
+        long h = 0xcbf29ce484222325L;
+        for (int i=start; i<end; i++) {
+            h ^= Character.toLowerCase(text.charAt(i));
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+}
@@ -1,6 +1,11 @@
 package org.heneveld.maven.license_audit.util;
 
+import java.io.File;
+
 import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.LocalRepositoryManager;
 
 public class MavenUtil {
 
@@ -17,5 +22,14 @@ public class MavenUtil {
         if (pp==null) return result;
         return getDeclaredUrl(pp);
     }
-    
+
+    /** Returns the POM file for the given coordinates in the local repository, or null if it is not there. */
+    public static File findLocalPom(RepositorySystemSession session, String groupId, String artifactId, String version) {
+        LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+        if (lrm==null) return null;
+        File f = new File(lrm.getRepository().getBasedir(),
+            lrm.getPathForLocalArtifact(new DefaultArtifact(groupId, artifactId, "", "pom", version)));
+        return f.exists() ? f : null;
+    }
+
 }
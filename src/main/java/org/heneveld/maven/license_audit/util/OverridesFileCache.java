@@ -0,0 +1,96 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.concurrent.Callable;
+
+/** Loads overrides and extras files ({@link ProjectsOverrides}), parsing and validating each file's YAML
+ * at most once for any given content: the result is kept in the {@link SessionCache} given, by the checksum of the file,
+ * and, if a directory is given, in a binary file there which is much quicker to read than the YAML.
+ * <p>
+ * The instances returned are shared, so should not be changed; add them to another with {@link ProjectsOverrides#addAll(ProjectsOverrides)}.
+ * Safe for concurrent use, including by several processes sharing the directory. */
+public class OverridesFileCache {
+
+    private final ChecksumFileStore<ProjectsOverrides> store;
+    private final SessionCache<ProjectsOverrides> sessionCache;
+
+    /** Creates a cache keeping results in the given session cache and, if not null, the given directory. */
+    public OverridesFileCache(File dir, SessionCache<ProjectsOverrides> sessionCache) {
+        this.store = dir==null ? null : new ChecksumFileStore<ProjectsOverrides>(dir, new ChecksumFileStore.Codec<ProjectsOverrides>() {
+            public void write(ProjectsOverrides value, DataOutput out) throws IOException {
+                value.writeTo(out);
+            }
+            public ProjectsOverrides read(DataInput in) throws IOException {
+                return ProjectsOverrides.readFrom(in);
+            }
+        });
+        this.sessionCache = sessionCache;
+    }
+
+    public File getDir() {
+        return store==null ? null : store.getDir();
+    }
+
+    /** Number of files read from the cache directory. */
+    public int getHits() {
+        return store==null ? 0 : store.getHits();
+    }
+
+    /** Number of files which had to be parsed. */
+    public int getMisses() {
+        return store==null ? 0 : store.getMisses();
+    }
+
+    /** Returns the overrides in the file.
+     * @throws IllegalArgumentException if the file is not valid (as {@link ProjectsOverrides#addFromYaml(java.io.Reader)}) */
+    public ProjectsOverrides load(File file) throws IOException {
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        final String checksum = checksum(bytes);
+        try {
+            return sessionCache.get(checksum, new Callable<ProjectsOverrides>() {
+                public ProjectsOverrides call() throws IOException {
+                    return loadUsingDir(bytes, checksum);
+                }
+            });
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+    }
+
+    protected ProjectsOverrides loadUsingDir(byte[] bytes, String checksum) throws IOException {
+        if (store==null) return parse(bytes);
+        String path = checksum+".bin";
+        ProjectsOverrides result = store.get(path, checksum);
+        if (result!=null) return result;
+        // validated as it is parsed, so only valid files are cached
+        result = parse(bytes);
+        try {
+            store.put(path, checksum, result);
+        } catch (IOException e) {
+            // can't be stored, e.g. the directory is read-only or it has values of types not supported; it will be parsed next time
+        }
+        return result;
+    }
+
+    protected ProjectsOverrides parse(byte[] bytes) {
+        // the platform charset, as if read with a FileReader
+        return ProjectsOverrides.fromReader(new StringReader(new String(bytes, Charset.defaultCharset())));
+    }
+
+    static String checksum(byte[] bytes) {
+        MessageDigest digest = Checksums.newDigest("SHA-1");
+        // so a change to the format invalidates old entries
+        digest.update((byte) ProjectsOverrides.FORMAT_VERSION);
+        digest.update(bytes);
+        return Checksums.toHex(digest);
+    }
+
+}
@@ -0,0 +1,217 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/** A prebuilt, immutable index of overrides (as {@link ProjectsOverrides}) in a file which is memory-mapped, not read:
+ * entries are found by binary search of the ids in the file and only the entries looked up are decoded,
+ * so opening it costs nothing however large the catalog, and the pages are shared (by the OS) by every process using the file.
+ * <p>
+ * The file holds a header, the offsets of the entries sorted by id, the order in which the ids were added,
+ * which of them are {@link IdPatterns patterns}, and then each entry's id and its overrides
+ * (in the form of {@link ProjectsOverrides#writeTo(java.io.DataOutput)}).
+ * Build one with {@link #write(ProjectsOverrides, File)}; the file must not be changed while it is open
+ * (it is written to a new file which is then moved into place, so rebuilding one is safe).
+ * <p>
+ * Safe for concurrent use. */
+public final class OverridesIndex {
+
+    static final int MAGIC = 0x4c414f49; // "LAOI"
+    static final int FORMAT_VERSION = 1;
+    // magic, version, count, pattern count
+    private static final int HEADER_BYTES = 16;
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int patternCount;
+
+    private OverridesIndex(File file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity()<HEADER_BYTES || buffer.getInt(0)!=MAGIC) throw new IOException("Not an overrides index: "+file);
+        int format = buffer.getInt(4);
+        if (format!=FORMAT_VERSION) throw new IOException("Unsupported overrides index format "+format+" in "+file);
+        count = buffer.getInt(8);
+        patternCount = buffer.getInt(12);
+        if (count<0 || patternCount<0 || HEADER_BYTES+4L*(2*count+patternCount)>buffer.capacity()) {
+            throw new IOException("Corrupt overrides index: "+file);
+        }
+    }
+
+    /** Maps the given index file. */
+    public static OverridesIndex open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // the mapping remains valid after the channel is closed
+            return new OverridesIndex(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private int entryOffset(int sortedIndex) {
+        return buffer.getInt(HEADER_BYTES + 4*sortedIndex);
+    }
+
+    private String idAt(int sortedIndex) {
+        int offset = entryOffset(sortedIndex);
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        ByteBuffer b = buffer.duplicate();
+        b.position(offset+4);
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // compares the id stored at the given sorted index with the given bytes, as unsigned bytes
+    private int compareIdAt(int sortedIndex, byte[] id) {
+        int offset = entryOffset(sortedIndex);
+        int len = buffer.getInt(offset);
+        for (int i=0; i<len && i<id.length; i++) {
+            int c = (buffer.get(offset+4+i) & 0xff) - (id[i] & 0xff);
+            if (c!=0) return c;
+        }
+        return len - id.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String,Object> valueAt(int sortedIndex) {
+        int offset = entryOffset(sortedIndex);
+        int valueOffset = offset + 4 + buffer.getInt(offset);
+        byte[] bytes = new byte[buffer.getInt(valueOffset)];
+        ByteBuffer b = buffer.duplicate();
+        b.position(valueOffset+4);
+        b.get(bytes);
+        try {
+            return (Map<String,Object>) ProjectsOverrides.readValue(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt overrides index "+file+": "+e, e);
+        }
+    }
+
+    /** Returns the overrides given for exactly this id, decoded from the file (a new map each time), or null. */
+    public Map<String,Object> get(String id) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int low = 0, high = count-1;
+        while (low<=high) {
+            int mid = (low+high) >>> 1;
+            int c = compareIdAt(mid, key);
+            if (c<0) low = mid+1;
+            else if (c>0) high = mid-1;
+            else return valueAt(mid);
+        }
+        return null;
+    }
+
+    /** The ids in the index, in the order they were added (decoded as they are accessed). */
+    public List<String> getIds() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int i) {
+                if (i<0 || i>=count) throw new IndexOutOfBoundsException("Index "+i+", size "+count);
+                return idAt(buffer.getInt(HEADER_BYTES + 4*count + 4*i));
+            }
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /** Adds the patterns in the index, in the order they were added, to the given patterns. */
+    void addPatternsTo(IdPatterns patterns) {
+        for (int i=0; i<patternCount; i++) {
+            int sortedIndex = buffer.getInt(HEADER_BYTES + 8*count + 4*i);
+            patterns.add(idAt(sortedIndex), valueAt(sortedIndex));
+        }
+    }
+
+    /** Writes the entries of the given overrides as an index file
+     * (those added to it, not those only in an index it is backed by).
+     * @throws IOException if it cannot be written, or if any value is not of a type which can be stored */
+    public static void write(ProjectsOverrides overrides, File file) throws IOException {
+        final List<byte[]> ids = new ArrayList<byte[]>();
+        List<byte[]> values = new ArrayList<byte[]>();
+        List<Integer> patterns = new ArrayList<Integer>();
+        for (Map.Entry<String,Map<String,Object>> e: overrides.overridesByProject.entrySet()) {
+            if (IdPatterns.isPattern(e.getKey())) patterns.add(ids.size());
+            ids.add(e.getKey().getBytes(StandardCharsets.UTF_8));
+            ByteArrayOutputStream value = new ByteArrayOutputStream();
+            ProjectsOverrides.writeValue(new DataOutputStream(value), e.getValue());
+            values.add(value.toByteArray());
+        }
+        int count = ids.size();
+        Integer[] sorted = new Integer[count];
+        for (int i=0; i<count; i++) sorted[i] = i;
+        Arrays.sort(sorted, new Comparator<Integer>() {
+            public int compare(Integer i1, Integer i2) {
+                return compareUnsigned(ids.get(i1), ids.get(i2));
+            }
+        });
+        int[] sortedIndexOf = new int[count];
+        for (int i=0; i<count; i++) sortedIndexOf[sorted[i]] = i;
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        dir.mkdirs();
+        // write then move so that anyone with the old file mapped keeps a complete copy
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(count);
+                out.writeInt(patterns.size());
+                long offset = HEADER_BYTES + 4L*(2*count+patterns.size());
+                for (int i=0; i<count; i++) {
+                    if (offset>Integer.MAX_VALUE) throw new IOException("Overrides index too large");
+                    out.writeInt((int) offset);
+                    offset += 8 + ids.get(sorted[i]).length + values.get(sorted[i]).length;
+                }
+                for (int i=0; i<count; i++) out.writeInt(sortedIndexOf[i]);
+                for (int p: patterns) out.writeInt(sortedIndexOf[p]);
+                for (int i=0; i<count; i++) {
+                    byte[] id = ids.get(sorted[i]), value = values.get(sorted[i]);
+                    out.writeInt(id.length);
+                    out.write(id);
+                    out.writeInt(value.length);
+                    out.write(value);
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    private static int compareUnsigned(byte[] b1, byte[] b2) {
+        for (int i=0; i<b1.length && i<b2.length; i++) {
+            int c = (b1[i] & 0xff) - (b2[i] & 0xff);
+            if (c!=0) return c;
+        }
+        return b1.length - b2.length;
+    }
+
+}
@@ -0,0 +1,242 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.ArtifactHandler;
+import org.apache.maven.model.Contributor;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Developer;
+import org.apache.maven.model.License;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Organization;
+import org.apache.maven.project.MavenProject;
+
+/** The parts of a {@link MavenProject} which the reports read, in a compact form
+ * which can be written to and read from a cache and turned back into a minimal project.
+ * <p>
+ * The URL is the one given by {@link MavenUtil#getDeclaredUrl(MavenProject)},
+ * so the parent chain is not needed afterwards. */
+public class ProjectMetadata {
+
+    static final int FORMAT_VERSION = 1;
+
+    public final String groupId, artifactId, version, packaging;
+    /** coordinates of the project's artifact, which may differ from the project's (e.g. snapshots) */
+    public final Coords artifact;
+    public final String artifactFile, pomFile;
+    public final String name, description, url, inceptionYear;
+    public final Organization organization;
+    public final List<License> licenses;
+    public final List<Contributor> contributors;
+    public final List<Developer> developers;
+    public final List<Dependency> dependencies;
+
+    public ProjectMetadata(String groupId, String artifactId, String version, String packaging,
+            Coords artifact, String artifactFile, String pomFile,
+            String name, String description, String url, String inceptionYear, Organization organization,
+            List<License> licenses, List<Contributor> contributors, List<Developer> developers, List<Dependency> dependencies) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.packaging = packaging;
+        this.artifact = artifact;
+        this.artifactFile = artifactFile;
+        this.pomFile = pomFile;
+        this.name = name;
+        this.description = description;
+        this.url = url;
+        this.inceptionYear = inceptionYear;
+        this.organization = organization;
+        this.licenses = unmodifiable(licenses);
+        this.contributors = unmodifiable(contributors);
+        this.developers = unmodifiable(developers);
+        this.dependencies = unmodifiable(dependencies);
+    }
+
+    private static <T> List<T> unmodifiable(List<T> l) {
+        if (l==null) return Collections.emptyList();
+        return Collections.unmodifiableList(new ArrayList<T>(l));
+    }
+
+    public static ProjectMetadata of(MavenProject p) {
+        return new ProjectMetadata(p.getGroupId(), p.getArtifactId(), p.getVersion(), p.getPackaging(),
+            p.getArtifact()==null ? null : Coords.of(p.getArtifact()),
+            p.getArtifact()==null || p.getArtifact().getFile()==null ? null : p.getArtifact().getFile().getPath(),
+            p.getFile()==null ? null : p.getFile().getPath(),
+            p.getName(), p.getDescription(), MavenUtil.getDeclaredUrl(p), p.getInceptionYear(), p.getOrganization(),
+            p.getLicenses(), p.getContributors(), p.getDevelopers(), p.getDependencies());
+    }
+
+    /** Creates a project with just this information;
+     * the model is also set as the original model so the URL is treated as declared. */
+    public MavenProject toProject(ArtifactHandler artifactHandler) {
+        Model m = new Model();
+        m.setGroupId(groupId);
+        m.setArtifactId(artifactId);
+        m.setVersion(version);
+        m.setPackaging(packaging);
+        m.setName(name);
+        m.setDescription(description);
+        m.setUrl(url);
+        m.setInceptionYear(inceptionYear);
+        m.setOrganization(organization);
+        m.setLicenses(new ArrayList<License>(licenses));
+        m.setContributors(new ArrayList<Contributor>(contributors));
+        m.setDevelopers(new ArrayList<Developer>(developers));
+        m.setDependencies(new ArrayList<Dependency>(dependencies));
+
+        MavenProject p = new MavenProject(m);
+        p.setOriginalModel(m);
+        if (pomFile!=null) p.setFile(new File(pomFile));
+        if (artifact!=null) {
+            DefaultArtifact a = new DefaultArtifact(artifact.groupId, artifact.artifactId, artifact.version,
+                null, artifact.packagingExtensionType, artifact.classifier, artifactHandler);
+            if (artifactFile!=null) a.setFile(new File(artifactFile));
+            p.setArtifact(a);
+        }
+        return p;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, groupId);
+        writeString(out, artifactId);
+        writeString(out, version);
+        writeString(out, packaging);
+        out.writeBoolean(artifact!=null);
+        if (artifact!=null) {
+            writeString(out, artifact.groupId);
+            writeString(out, artifact.artifactId);
+            writeString(out, artifact.version);
+            writeString(out, artifact.baseVersion);
+            writeString(out, artifact.packagingExtensionType);
+            writeString(out, artifact.classifier);
+        }
+        writeString(out, artifactFile);
+        writeString(out, pomFile);
+        writeString(out, name);
+        writeString(out, description);
+        writeString(out, url);
+        writeString(out, inceptionYear);
+        out.writeBoolean(organization!=null);
+        if (organization!=null) {
+            writeString(out, organization.getName());
+            writeString(out, organization.getUrl());
+        }
+        out.writeInt(licenses.size());
+        for (License l: licenses) {
+            writeString(out, l.getName());
+            writeString(out, l.getUrl());
+            writeString(out, l.getComments());
+        }
+        writeContributors(out, contributors);
+        writeContributors(out, developers);
+        out.writeInt(dependencies.size());
+        for (Dependency d: dependencies) {
+            writeString(out, d.getGroupId());
+            writeString(out, d.getArtifactId());
+            writeString(out, d.getVersion());
+            writeString(out, d.getType());
+            writeString(out, d.getClassifier());
+            writeString(out, d.getScope());
+            out.writeBoolean(d.isOptional());
+        }
+    }
+
+    public static ProjectMetadata readFrom(DataInput in) throws IOException {
+        int format = in.readInt();
+        if (format!=FORMAT_VERSION) throw new IOException("Unsupported project metadata format "+format);
+        String groupId = readString(in);
+        String artifactId = readString(in);
+        String version = readString(in);
+        String packaging = readString(in);
+        Coords artifact = null;
+        if (in.readBoolean()) {
+            artifact = new Coords(readString(in), readString(in), readString(in), readString(in), readString(in), readString(in));
+        }
+        String artifactFile = readString(in);
+        String pomFile = readString(in);
+        String name = readString(in);
+        String description = readString(in);
+        String url = readString(in);
+        String inceptionYear = readString(in);
+        Organization organization = null;
+        if (in.readBoolean()) {
+            organization = new Organization();
+            organization.setName(readString(in));
+            organization.setUrl(readString(in));
+        }
+        List<License> licenses = new ArrayList<License>();
+        for (int i=in.readInt(); i>0; i--) {
+            licenses.add(LicenseCodes.newLicense(readString(in), readString(in), readString(in)));
+        }
+        List<Contributor> contributors = new ArrayList<Contributor>();
+        for (int i=in.readInt(); i>0; i--) {
+            contributors.add(readContributor(in, new Contributor()));
+        }
+        List<Developer> developers = new ArrayList<Developer>();
+        for (int i=in.readInt(); i>0; i--) {
+            developers.add(readContributor(in, new Developer()));
+        }
+        List<Dependency> dependencies = new ArrayList<Dependency>();
+        for (int i=in.readInt(); i>0; i--) {
+            Dependency d = new Dependency();
+            d.setGroupId(readString(in));
+            d.setArtifactId(readString(in));
+            d.setVersion(readString(in));
+            d.setType(readString(in));
+            d.setClassifier(readString(in));
+            d.setScope(readString(in));
+            d.setOptional(in.readBoolean());
+            dependencies.add(d);
+        }
+        return new ProjectMetadata(groupId, artifactId, version, packaging, artifact, artifactFile, pomFile,
+            name, description, url, inceptionYear, organization, licenses, contributors, developers, dependencies);
+    }
+
+    private static void writeContributors(DataOutput out, List<? extends Contributor> contributors) throws IOException {
+        out.writeInt(contributors.size());
+        for (Contributor c: contributors) {
+            writeString(out, c.getName());
+            writeString(out, c.getUrl());
+            writeString(out, c.getOrganization());
+            writeString(out, c.getOrganizationUrl());
+        }
+    }
+
+    private static <T extends Contributor> T readContributor(DataInput in, T c) throws IOException {
+        c.setName(readString(in));
+        c.setUrl(readString(in));
+        c.setOrganization(readString(in));
+        c.setOrganizationUrl(readString(in));
+        return c;
+    }
+
+    // not writeUTF as that is limited to 64k, which descriptions could conceivably exceed
+    public static void writeString(DataOutput out, String s) throws IOException {
+        if (s==null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int len = in.readInt();
+        if (len<0) return null;
+        byte[] bytes = new byte[len];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
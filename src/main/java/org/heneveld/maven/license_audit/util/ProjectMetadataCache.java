@@ -0,0 +1,156 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.eclipse.aether.RepositorySystemSession;
+
+/** Persistent cache of {@link ProjectMetadata}, one file per project
+ * (groupId/artifactId/version under the cache directory),
+ * valid only while the checksum of the project's POM, its parents' POMs and any POMs they import is unchanged.
+ * Safe for concurrent use, including by several processes sharing the directory. */
+public class ProjectMetadataCache {
+
+    final ChecksumFileStore<ProjectMetadata> store;
+
+    public ProjectMetadataCache(File dir) {
+        store = new ChecksumFileStore<ProjectMetadata>(dir, new ChecksumFileStore.Codec<ProjectMetadata>() {
+            public void write(ProjectMetadata value, DataOutput out) throws IOException {
+                value.writeTo(out);
+            }
+            public ProjectMetadata read(DataInput in) throws IOException {
+                return ProjectMetadata.readFrom(in);
+            }
+        });
+    }
+
+    public File getDir() {
+        return store.getDir();
+    }
+
+    public int getHits() {
+        return store.getHits();
+    }
+
+    public int getMisses() {
+        return store.getMisses();
+    }
+
+    protected String pathFor(Coords c) {
+        return c.groupId+"/"+c.artifactId+"/"+(Coords.isNonEmpty(c.baseVersion) ? c.baseVersion : c.version)+".bin";
+    }
+
+    /** Returns the cached metadata if there is an entry for the checksum given, otherwise null (a miss). */
+    public ProjectMetadata get(Coords c, String checksum) {
+        return store.get(pathFor(c), checksum);
+    }
+
+    public void put(Coords c, String checksum, ProjectMetadata data) throws IOException {
+        store.put(pathFor(c), checksum, data);
+    }
+
+    /** Computes a checksum of the POM for the given project in the local repository, of all its parents' POMs,
+     * and of any POMs imported into its dependency management (BOMs), with their parents and imports in turn,
+     * as all of these can change the dependencies and other metadata of the project;
+     * or returns null if any of these are not available locally (or an import's coordinates can't be worked out). */
+    public static String checksumOfPomAndParents(RepositorySystemSession session, Coords c) {
+        MessageDigest digest = Checksums.newDigest("SHA-1");
+        Set<String> imported = new HashSet<String>();
+        Deque<String[]> toDigest = new ArrayDeque<String[]>();
+        toDigest.add(new String[] { c.groupId, c.artifactId, c.version });
+        while (!toDigest.isEmpty()) {
+            String[] next = toDigest.remove();
+            List<String[]> imports = new ArrayList<String[]>();
+            if (!digestPomAndParents(session, digest, next[0], next[1], next[2], imports)) return null;
+            for (String[] i: imports) {
+                // the same BOM imported twice (or in a cycle) need only be included once
+                if (imported.add(i[0]+":"+i[1]+":"+i[2])) toDigest.add(i);
+            }
+        }
+        return Checksums.toHex(digest);
+    }
+
+    // adds the POM and its parents to the digest, and the coordinates of any POMs they import to the list given
+    private static boolean digestPomAndParents(RepositorySystemSession session, MessageDigest digest,
+            String groupId, String artifactId, String version, List<String[]> imports) {
+        Set<String> seen = new HashSet<String>();
+        // properties for the imports' coordinates; those in a child take precedence over a parent's
+        Map<String,String> properties = new HashMap<String,String>();
+        properties.put("project.groupId", groupId);
+        properties.put("project.version", version);
+        List<Dependency> importDeps = new ArrayList<Dependency>();
+        while (true) {
+            if (!seen.add(groupId+":"+artifactId+":"+version)) return false;
+            File pom = MavenUtil.findLocalPom(session, groupId, artifactId, version);
+            if (pom==null) return false;
+            byte[] bytes;
+            Model raw;
+            try {
+                bytes = Files.readAllBytes(pom.toPath());
+                try (InputStream in = new ByteArrayInputStream(bytes)) {
+                    raw = new MavenXpp3Reader().read(in, false);
+                }
+            } catch (Exception e) {
+                return false;
+            }
+            digest.update(bytes);
+            for (String p: raw.getProperties().stringPropertyNames()) {
+                if (!properties.containsKey(p)) properties.put(p, raw.getProperties().getProperty(p));
+            }
+            if (raw.getDependencyManagement()!=null) {
+                for (Dependency d: raw.getDependencyManagement().getDependencies()) {
+                    if ("import".equals(d.getScope()) && "pom".equals(d.getType())) importDeps.add(d);
+                }
+            }
+            Parent parent = raw.getParent();
+            if (parent==null) break;
+            groupId = parent.getGroupId();
+            artifactId = parent.getArtifactId();
+            version = parent.getVersion();
+            if (groupId==null || artifactId==null || version==null || version.contains("${")) return false;
+        }
+        for (Dependency d: importDeps) {
+            String[] coords = { interpolate(d.getGroupId(), properties), interpolate(d.getArtifactId(), properties),
+                interpolate(d.getVersion(), properties) };
+            for (String x: coords) {
+                if (x==null) return false;
+            }
+            imports.add(coords);
+        }
+        return true;
+    }
+
+    // replaces ${...} with the properties given, returning null if any are unknown
+    private static String interpolate(String s, Map<String,String> properties) {
+        // bounded, in case properties refer to each other in a cycle
+        for (int i=0; s!=null && i<10; i++) {
+            int start = s.indexOf("${");
+            if (start<0) return s;
+            int end = s.indexOf('}', start);
+            if (end<0) return null;
+            String value = properties.get(s.substring(start+2, end));
+            if (value==null) return null;
+            s = s.substring(0, start)+value+s.substring(end+1);
+        }
+        return s!=null && !s.contains("${") ? s : null;
+    }
+
+}
@@ -1,5 +1,10 @@
 package org.heneveld.maven.license_audit.util;
 
+import static org.heneveld.maven.license_audit.util.ProjectMetadata.readString;
+import static org.heneveld.maven.license_audit.util.ProjectMetadata.writeString;
+
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
@@ -11,6 +16,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.maven.model.License;
 import org.apache.maven.project.MavenProject;
@@ -19,8 +25,30 @@ import org.yaml.snakeyaml.Yaml;
 public class ProjectsOverrides {
 
     Map<String,Map<String,Object>> overridesByProject = new LinkedHashMap<String,Map<String,Object>>();
+    // those of the above whose ids are patterns, e.g. with globs or version ranges
+    final IdPatterns patterns = new IdPatterns();
+    // if set, entries not in the map above are looked up in this (and those added are merged over its)
+    private final OverridesIndex index;
+    
+    // the merged overrides for each id and project looked up, so repeated lookups (several per project in reports)
+    // neither walk the prefixes nor allocate; cleared whenever entries are added
+    private final Map<String,Map<String,Object>> mergedById = new ConcurrentHashMap<String,Map<String,Object>>();
+    private final Map<Coords,Map<?,?>> mergedByProject = new ConcurrentHashMap<Coords,Map<?,?>>();
+    
+    public ProjectsOverrides() {
+        this(null);
+    }
     
-    public ProjectsOverrides() {}
+    protected ProjectsOverrides(OverridesIndex index) {
+        this.index = index;
+        if (index!=null) index.addPatternsTo(patterns);
+    }
+    
+    /** Returns overrides backed by the given index, so entries are only read from it when looked up;
+     * entries can be added over those in the index as with any other instance. */
+    public static ProjectsOverrides fromIndex(OverridesIndex index) {
+        return new ProjectsOverrides(index);
+    }
     
     public static ProjectsOverrides fromReader(Reader r) {
         return new ProjectsOverrides().addFromYaml(r);
@@ -36,10 +64,38 @@ public class ProjectsOverrides {
     }
 
     public Collection<String> getProjects() {
-        return overridesByProject.keySet();
+        if (index==null) return overridesByProject.keySet();
+        Set<String> result = new LinkedHashSet<String>(index.getIds());
+        result.addAll(overridesByProject.keySet());
+        return result;
     }
 
+    /** Returns the overrides for the project, merged from those for the id and each <code>:</code>-separated prefix of it,
+     * longer prefixes taking precedence; the map returned is shared, so cannot be modified. */
     public Map<String,Object> getOverridesForProject(String projectId) {
+        Map<String,Object> result = mergedById.get(projectId);
+        if (result==null) {
+            result = Collections.unmodifiableMap(mergeOverridesForProject(projectId));
+            mergedById.put(projectId, result);
+        }
+        return result;
+    }
+    
+    protected Map<String,Object> mergeOverridesForProject(String projectId) {
+        Map<String, Object> result = mergeLiteralOverridesForProject(projectId);
+        if (!IdPatterns.isPattern(projectId)) {
+            // anything for the id or its prefixes trumps patterns
+            Map<String, Object> fromPatterns = mergePatternOverridesForProject(projectId);
+            if (!fromPatterns.isEmpty()) {
+                fromPatterns.putAll(result);
+                result = fromPatterns;
+            }
+        }
+        return result;
+    }
+    
+    /** The overrides for the id and each of its prefixes, longer prefixes taking precedence, ignoring patterns. */
+    protected Map<String,Object> mergeLiteralOverridesForProject(String projectId) {
         Map<String, Object> result = new LinkedHashMap<>();
         
         String idBase = projectId;
@@ -59,19 +115,44 @@ public class ProjectsOverrides {
         }
         return result;
     }
+    
+    /** The overrides from all patterns matching the id, in order of precedence. */
+    protected Map<String,Object> mergePatternOverridesForProject(String projectId) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (patterns.size()>0) {
+            for (Map<String,Object> po: patterns.matching(projectId)) result.putAll(po);
+        }
+        return result;
+    }
     public Map<String,Object> getOverridesForProjectExactlyOrNull(String projectId) {
         if (projectId==null) return null;
         Map<String, Object> result = overridesByProject.get(projectId.trim());
+        if (result==null && index!=null) result = index.get(projectId.trim());
         return result;
     }
+    /** As {@link #getOverridesForProject(String)} for the project's id, with those for <code>group:*:*</code>
+     * and <code>group:artifact:*</code> beneath them; the map returned is shared, so cannot be modified. */
     public Map<?, ?> getOverridesForProject(MavenProject p) {
+        Coords coords = Coords.of(p);
+        Map<?,?> result = mergedByProject.get(coords);
+        if (result==null) {
+            result = Collections.unmodifiableMap(mergeOverridesForProject(p));
+            mergedByProject.put(coords, result);
+        }
+        return result;
+    }
+    
+    protected Map<?, ?> mergeOverridesForProject(MavenProject p) {
         Map<Object,Object> result = new LinkedHashMap<Object, Object>();
+        // patterns matching the project are trumped by anything given for it literally,
+        // so are applied once, beneath all of the below
+        result.putAll(mergePatternOverridesForProject(Coords.of(p).normal()));
         // wildcard can be specified for project and version trumps next
-        result.putAll(getOverridesForProject(p.getGroupId()+":*"+":*"));
+        result.putAll(mergeLiteralOverridesForProject(p.getGroupId()+":*"+":*"));
         // but that is trumped by wildcard specified for version trumps
-        result.putAll(getOverridesForProject(Coords.of(p).unversioned()+":*"));
+        result.putAll(mergeLiteralOverridesForProject(Coords.of(p).unversioned()+":*"));
         // which is trumped by exact version match
-        result.putAll(getOverridesForProject(Coords.of(p).normal()));
+        result.putAll(mergeLiteralOverridesForProject(Coords.of(p).normal()));
         
         // (if no wildcards are specified, they aren't treated as overrides, 
         // but they are treated as defaults, for things like license and urls)
@@ -121,6 +202,9 @@ public class ProjectsOverrides {
             throw new IllegalArgumentException("Input data invalid; file should be a YAML list (not "+data.getClass()+"), each containing an 'entry' map");
         }
         Set<String> projectsToValidate = new LinkedHashSet<>();
+        // merged views are computed again on demand (nothing is looked up while entries are being added)
+        mergedById.clear();
+        mergedByProject.clear();
         for (Object entry: ((Iterable<?>)data)) {
             if (!(entry instanceof Map)) {
                 throw new IllegalArgumentException("Invalid entry; entry should be a YAML map (not "+entry.getClass()+": "+entry+")");
@@ -137,11 +221,7 @@ public class ProjectsOverrides {
             if (ids!=null) {
                 for (String projectId: ids) {
                     projectId = projectId.trim();
-                    Map<String, Object> result = overridesByProject.get(projectId);
-                    if (result==null) {
-                        result = new LinkedHashMap<String, Object>();
-                        overridesByProject.put(projectId, result);
-                    }
+                    Map<String, Object> result = getOrCreateEntry(projectId);
                     result.putAll(emap);
                     projectsToValidate.add(projectId);
                 }
@@ -152,6 +232,16 @@ public class ProjectsOverrides {
         
         // do this after in case invalid licenses are overridden, and collect all errors
         List<String> errors = new ArrayList<>();
+        // patterns first, as they apply to the others
+        for (String projectId: projectsToValidate) {
+            if (IdPatterns.isPattern(projectId)) {
+                try {
+                    patterns.add(projectId, overridesByProject.get(projectId));
+                } catch (Exception e) {
+                    errors.add(projectId+": "+e);
+                }
+            }
+        }
         for (String projectId: projectsToValidate) {
             // do this to ensure it is the right type (retrieval will throw if malformed)
             try {
@@ -167,6 +257,117 @@ public class ProjectsOverrides {
         return this;
     }
     
+    /** Adds all the entries of another instance, as if its YAML were added, without validating them again. */
+    public ProjectsOverrides addAll(ProjectsOverrides other) {
+        mergedById.clear();
+        mergedByProject.clear();
+        for (Map.Entry<String,Map<String,Object>> e: other.overridesByProject.entrySet()) {
+            Map<String, Object> result = getOrCreateEntry(e.getKey());
+            result.putAll(e.getValue());
+            if (IdPatterns.isPattern(e.getKey())) patterns.add(e.getKey(), result);
+        }
+        return this;
+    }
+    
+    private Map<String,Object> getOrCreateEntry(String projectId) {
+        Map<String, Object> result = overridesByProject.get(projectId);
+        if (result==null) {
+            // starting from what the index has for it, if anything
+            result = index==null ? null : index.get(projectId);
+            if (result==null) result = new LinkedHashMap<String, Object>();
+            overridesByProject.put(projectId, result);
+        }
+        return result;
+    }
+    
+    static final int FORMAT_VERSION = 1;
+    
+    // types of values, as they come from YAML
+    private static final int NULL = 0, STRING = 1, BOOLEAN = 2, INTEGER = 3, LONG = 4, DOUBLE = 5, LIST = 6, MAP = 7;
+    
+    /** Writes the entries in a compact binary form, read by {@link #readFrom(DataInput)};
+     * only those added to this instance, not those only in its index (if it has one), are written;
+     * throws if any value is not of a type YAML gives for plain scalars, lists and maps (e.g. a date). */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(overridesByProject.size());
+        for (Map.Entry<String,Map<String,Object>> e: overridesByProject.entrySet()) {
+            writeString(out, e.getKey());
+            writeValue(out, e.getValue());
+        }
+    }
+    
+    public static ProjectsOverrides readFrom(DataInput in) throws IOException {
+        int format = in.readInt();
+        if (format!=FORMAT_VERSION) throw new IOException("Unsupported overrides format "+format);
+        ProjectsOverrides result = new ProjectsOverrides();
+        for (int i=in.readInt(); i>0; i--) {
+            String id = readString(in);
+            @SuppressWarnings("unchecked")
+            Map<String,Object> entry = (Map<String,Object>) readValue(in);
+            result.overridesByProject.put(id, entry);
+            if (IdPatterns.isPattern(id)) result.patterns.add(id, entry);
+        }
+        return result;
+    }
+    
+    static void writeValue(DataOutput out, Object v) throws IOException {
+        if (v==null) {
+            out.writeByte(NULL);
+        } else if (v instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String)v);
+        } else if (v instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean)v);
+        } else if (v instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer)v);
+        } else if (v instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long)v);
+        } else if (v instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double)v);
+        } else if (v instanceof List) {
+            out.writeByte(LIST);
+            out.writeInt(((List<?>)v).size());
+            for (Object x: (List<?>)v) writeValue(out, x);
+        } else if (v instanceof Map) {
+            out.writeByte(MAP);
+            out.writeInt(((Map<?,?>)v).size());
+            for (Map.Entry<?,?> x: ((Map<?,?>)v).entrySet()) {
+                writeValue(out, x.getKey());
+                writeValue(out, x.getValue());
+            }
+        } else {
+            throw new IOException("Cannot store value of "+v.getClass()+": "+v);
+        }
+    }
+    
+    static Object readValue(DataInput in) throws IOException {
+        int type = in.readByte();
+        switch (type) {
+        case NULL: return null;
+        case STRING: return readString(in);
+        case BOOLEAN: return in.readBoolean();
+        case INTEGER: return in.readInt();
+        case LONG: return in.readLong();
+        case DOUBLE: return in.readDouble();
+        case LIST:
+            int n = in.readInt();
+            List<Object> list = new ArrayList<Object>(n);
+            for (int i=0; i<n; i++) list.add(readValue(in));
+            return list;
+        case MAP:
+            Map<Object,Object> map = new LinkedHashMap<Object,Object>();
+            for (int i=in.readInt(); i>0; i--) map.put(readValue(in), readValue(in));
+            return map;
+        default:
+            throw new IOException("Invalid value type "+type);
+        }
+    }
+    
     public static List<License> parseAsLicenses(Object ll) {
         if (ll==null) return null;
         if (ll instanceof Iterable) {
@@ -0,0 +1,76 @@
+package org.heneveld.maven.license_audit.util;
+
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.graph.Dependency;
+
+/** Selects the direct dependencies of the project in the scopes being audited
+ * (and not optional, if so configured), and thereafter defers to the base selector,
+ * excluding optional dependencies as they are never included in the report.
+ * <p>
+ * Value-equal, as aether reuses the work done for equal selectors;
+ * depths beyond the direct dependencies are not distinguished. */
+public class RootScopeDependencySelector implements DependencySelector {
+
+    private final DependencySelector base;
+    // the depth of the dependencies this selects, 1 being direct dependencies of the project, capped at 2
+    private final int depth;
+    // comma-separated, with a leading and trailing comma, or null for all scopes
+    private final String includeScopes;
+    private final boolean excludeRootOptional;
+
+    /** @param includeScopes scopes to include, as <code>,compile,runtime,</code>, or null for all */
+    public RootScopeDependencySelector(DependencySelector base, String includeScopes, boolean excludeRootOptional) {
+        this(base, 0, includeScopes, excludeRootOptional);
+    }
+
+    private RootScopeDependencySelector(DependencySelector base, int depth, String includeScopes, boolean excludeRootOptional) {
+        this.base = base;
+        this.depth = depth;
+        this.includeScopes = includeScopes;
+        this.excludeRootOptional = excludeRootOptional;
+    }
+
+    public boolean selectDependency(Dependency dependency) {
+        if (depth<=1) {
+            // use these root scopes
+            return (includeScopes==null || includeScopes.contains(","+dependency.getScope()+","))
+                && (!dependency.isOptional() || !excludeRootOptional);
+        }
+        if (dependency.isOptional()) return false;
+        return base==null || base.selectDependency(dependency);
+    }
+
+    public DependencySelector deriveChildSelector(DependencyCollectionContext context) {
+        DependencySelector childBase = base==null ? null : base.deriveChildSelector(context);
+        int childDepth = Math.min(depth+1, 2);
+        if (childDepth==depth && childBase==base) return this;
+        return new RootScopeDependencySelector(childBase, childDepth, includeScopes, excludeRootOptional);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this==obj) return true;
+        if (obj==null || obj.getClass()!=getClass()) return false;
+        RootScopeDependencySelector other = (RootScopeDependencySelector) obj;
+        return depth==other.depth && excludeRootOptional==other.excludeRootOptional
+            && (base==null ? other.base==null : base.equals(other.base))
+            && (includeScopes==null ? other.includeScopes==null : includeScopes.equals(other.includeScopes));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = getClass().hashCode();
+        result = result*31 + depth;
+        result = result*31 + (excludeRootOptional ? 1 : 0);
+        result = result*31 + (base==null ? 0 : base.hashCode());
+        result = result*31 + (includeScopes==null ? 0 : includeScopes.hashCode());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()+"[depth="+depth+", scopes="+includeScopes+", excludeRootOptional="+excludeRootOptional+", base="+base+"]";
+    }
+
+}
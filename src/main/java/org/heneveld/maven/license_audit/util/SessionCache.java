@@ -0,0 +1,105 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+
+/** Values computed during a build which can be shared by all executions of the plugin in the same session,
+ * e.g. by each module in a reactor, kept in the session's {@link RepositoryCache}.
+ * <p>
+ * Safe for concurrent use (as with <code>mvn -T</code>): each value is computed once,
+ * and anyone else asking for it while it is being computed waits for that computation. */
+public class SessionCache<T> {
+
+    final ConcurrentMap<String,FutureTask<T>> entries = new ConcurrentHashMap<String,FutureTask<T>>();
+    final AtomicInteger hits = new AtomicInteger();
+    final AtomicInteger misses = new AtomicInteger();
+
+    /** Returns the cache of the given name for the session, creating it if needed;
+     * if the session has no {@link RepositoryCache} the result is not shared. */
+    @SuppressWarnings("unchecked")
+    public static <T> SessionCache<T> forSession(RepositorySystemSession session, String name) {
+        RepositoryCache cache = session.getCache();
+        if (cache==null) return new SessionCache<T>();
+        String key = SessionCache.class.getName()+":"+name;
+        synchronized (cache) {
+            SessionCache<T> result = (SessionCache<T>) cache.get(session, key);
+            if (result==null) {
+                result = new SessionCache<T>();
+                cache.put(session, key, result);
+            }
+            return result;
+        }
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Forgets the value for the key, if there is one, so it is computed again when next asked for. */
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    /** Forgets the value for the key only if it is the value given (the same instance),
+     * so that one caller discarding a value it got does not also discard one another caller has since put there. */
+    public boolean remove(String key, T expected) {
+        FutureTask<T> task = entries.get(key);
+        if (task==null || !task.isDone()) return false;
+        try {
+            if (task.get()!=expected) return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            // a failed entry is removed by whoever gets it
+            return false;
+        }
+        return entries.remove(key, task);
+    }
+
+    /** Returns the value for the key, computing it with the loader if it is not known
+     * (in the calling thread); if the loader fails the entry is removed so that it can be retried. */
+    public T get(String key, Callable<T> loader) {
+        FutureTask<T> task = entries.get(key);
+        if (task==null) {
+            FutureTask<T> newTask = new FutureTask<T>(loader);
+            task = entries.putIfAbsent(key, newTask);
+            if (task==null) {
+                task = newTask;
+                misses.incrementAndGet();
+                task.run();
+            } else {
+                hits.incrementAndGet();
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for "+key, e);
+        } catch (ExecutionException e) {
+            entries.remove(key, task);
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new IllegalStateException("Error computing "+key+": "+e.getCause(), e.getCause());
+        }
+    }
+
+}
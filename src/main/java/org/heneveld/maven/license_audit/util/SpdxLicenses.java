@@ -0,0 +1,221 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.maven.model.License;
+
+/** The SPDX license list, as bundled in <code>spdx-licenses.txt</code>,
+ * indexed by id, by name, by URL and by a signature of the words in the name.
+ * <p>
+ * It is only read the first time it is used (see {@link #get()}), and then kept; it is immutable, so safe for concurrent use. */
+public final class SpdxLicenses {
+
+    static final String RESOURCE = "spdx-licenses.txt";
+    static final String REFERENCE_URL_PREFIX = "https://spdx.org/licenses/";
+
+    /** A license in the SPDX list. */
+    public static final class Entry {
+        public final String id, name;
+        public final boolean deprecated, osiApproved;
+        /** other URLs for the license, as given by SPDX (not including the reference URL) */
+        public final List<String> urls;
+
+        Entry(String id, String name, boolean deprecated, boolean osiApproved, List<String> urls) {
+            this.id = id;
+            this.name = name;
+            this.deprecated = deprecated;
+            this.osiApproved = osiApproved;
+            this.urls = Collections.unmodifiableList(urls);
+        }
+
+        /** The license's page on the SPDX site. */
+        public String getReferenceUrl() {
+            return REFERENCE_URL_PREFIX+id+".html";
+        }
+
+        public License toLicense() {
+            return LicenseCodes.newLicense(name, getReferenceUrl(), null);
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+
+    // stored where two licenses would have the same key, so that neither is found by it
+    private static final Entry AMBIGUOUS = new Entry("<ambiguous>", null, false, false, Collections.<String>emptyList());
+
+    // words which say nothing about which license it is
+    private static final Set<String> SIGNATURE_IGNORED_WORDS = new HashSet<String>(Arrays.asList(
+        "the", "license", "licence", "licensed", "version", "ver", "v"));
+
+    private final String listVersion;
+    private final List<Entry> entries;
+    private final Map<String,Entry> byId = new HashMap<String,Entry>();
+    private final Map<String,Entry> byName = new HashMap<String,Entry>();
+    private final Map<String,Entry> byUrl = new HashMap<String,Entry>();
+    private final Map<String,Entry> bySignature = new HashMap<String,Entry>();
+
+    private static class Holder {
+        static final SpdxLicenses INSTANCE = load();
+    }
+
+    /** Returns the bundled list, reading it if this is the first use. */
+    public static SpdxLicenses get() {
+        return Holder.INSTANCE;
+    }
+
+    private static SpdxLicenses load() {
+        InputStream in = SpdxLicenses.class.getResourceAsStream(RESOURCE);
+        if (in==null) throw new IllegalStateException("Missing resource "+RESOURCE);
+        try {
+            try {
+                return read(new InputStreamReader(in, StandardCharsets.UTF_8));
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read "+RESOURCE+": "+e, e);
+        }
+    }
+
+    /** Reads a list in the format of the bundled one: tab-separated id, flags, name and space-separated URLs,
+     * one per line, with comments starting <code>#</code>. */
+    static SpdxLicenses read(Reader reader) throws IOException {
+        BufferedReader r = new BufferedReader(reader);
+        String listVersion = null;
+        List<Entry> entries = new ArrayList<Entry>();
+        String line;
+        while ((line = r.readLine())!=null) {
+            if (line.startsWith("#")) {
+                if (listVersion==null && line.startsWith("# SPDX License List ")) {
+                    listVersion = line.substring("# SPDX License List ".length()).split(" ")[0];
+                }
+                continue;
+            }
+            if (line.trim().isEmpty()) continue;
+            String[] fields = line.split("\t", -1);
+            if (fields.length<3) throw new IOException("Invalid line in SPDX license list: "+line);
+            List<String> urls = fields.length<4 || fields[3].trim().isEmpty() ? Collections.<String>emptyList() : Arrays.asList(fields[3].trim().split(" +"));
+            entries.add(new Entry(fields[0], fields[2], fields[1].contains("d"), fields[1].contains("o"), urls));
+        }
+        return new SpdxLicenses(listVersion, entries);
+    }
+
+    SpdxLicenses(String listVersion, List<Entry> entries) {
+        this.listVersion = listVersion;
+        this.entries = Collections.unmodifiableList(new ArrayList<Entry>(entries));
+        for (Entry e: entries) {
+            byId.put(e.id.toLowerCase(), e);
+        }
+        for (Entry e: entries) {
+            put(byName, normalizeName(e.name), e);
+            put(bySignature, signature(e.name), e);
+            put(byUrl, LicenseCodes.normalizeUrl(e.getReferenceUrl()), e);
+            for (String url: e.urls) put(byUrl, LicenseCodes.normalizeUrl(url), e);
+        }
+    }
+
+    // keeps a current license in preference to a deprecated one, otherwise remembers the clash
+    private static void put(Map<String,Entry> index, String key, Entry e) {
+        if (key==null || key.isEmpty()) return;
+        Entry old = index.get(key);
+        if (old==null || old==e) index.put(key, e);
+        else if (old==AMBIGUOUS) return;
+        else if (old.deprecated && !e.deprecated) index.put(key, e);
+        else if (!old.deprecated && e.deprecated) return;
+        else index.put(key, AMBIGUOUS);
+    }
+
+    private static Entry found(Entry e) {
+        return e==AMBIGUOUS ? null : e;
+    }
+
+    /** The version of the SPDX license list, e.g. 3.20. */
+    public String getListVersion() {
+        return listVersion;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Returns the license with the given id, ignoring case, or null. */
+    public Entry byId(String id) {
+        if (id==null) return null;
+        return byId.get(id.trim().toLowerCase());
+    }
+
+    /** Returns the license with the given name, ignoring case and spacing, or null. */
+    public Entry byName(String name) {
+        if (name==null) return null;
+        return found(byName.get(normalizeName(name)));
+    }
+
+    /** Returns the license with the given URL, or null; URLs are compared as {@link LicenseCodes#normalizeUrl(String)}. */
+    public Entry byUrl(String url) {
+        if (url==null) return null;
+        return found(byUrl.get(LicenseCodes.normalizeUrl(url)));
+    }
+
+    /** Returns the license whose name has the same words as the given text, in any order and ignoring words like "the" and "license",
+     * and trailing zeros in versions, or null. */
+    public Entry bySignature(String text) {
+        if (text==null) return null;
+        return found(bySignature.get(signature(text)));
+    }
+
+    /** Returns the license with the given id, name, or signature of a name, in that order of preference, or null. */
+    public Entry lookup(String idOrName) {
+        Entry result = byId(idOrName);
+        if (result==null) result = byName(idOrName);
+        if (result==null) result = bySignature(idOrName);
+        return result;
+    }
+
+    static String normalizeName(String name) {
+        return name.trim().toLowerCase().replaceAll("\\s+", " ");
+    }
+
+    /** The words in the text, lower case, sorted and space-separated, without those which don't distinguish licenses;
+     * versions lose trailing <code>.0</code>s and any leading <code>v</code>. */
+    static String signature(String text) {
+        Set<String> words = new TreeSet<String>();
+        for (String w: text.toLowerCase().split("[^a-z0-9.+]+")) {
+            while (w.startsWith(".")) w = w.substring(1);
+            while (w.endsWith(".")) w = w.substring(0, w.length()-1);
+            if (w.length()>1 && w.charAt(0)=='v' && Character.isDigit(w.charAt(1))) w = w.substring(1);
+            if (!w.isEmpty() && Character.isDigit(w.charAt(0))) {
+                while (w.endsWith(".0")) w = w.substring(0, w.length()-2);
+            }
+            if (w.isEmpty() || SIGNATURE_IGNORED_WORDS.contains(w)) continue;
+            words.add(w);
+        }
+        StringBuilder result = new StringBuilder();
+        for (String w: words) {
+            if (result.length()>0) result.append(' ');
+            result.append(w);
+        }
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,409 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.maven.model.Contributor;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Developer;
+import org.apache.maven.model.License;
+import org.apache.maven.model.Organization;
+
+/** Reads the {@link ProjectMetadata} for a project directly from its POM and its parents' POMs,
+ * as a much cheaper alternative to building the project with maven.
+ * <p>
+ * Only the elements used in reports are read, with maven's inheritance rules for these
+ * (name is not inherited; description, inception year and organization are;
+ * licenses, developers and contributors are inherited if none are declared;
+ * dependencies are merged and dependency management, including imports, is applied).
+ * Property interpolation covers properties declared in the POMs and the project coordinates.
+ * Profiles, plugins and everything else are ignored.
+ * <p>
+ * The URL is the declared URL, as per {@link MavenUtil#getDeclaredUrl(org.apache.maven.project.MavenProject)}:
+ * the project's own, else that declared by the nearest parent declaring one,
+ * interpolated in the context of the POM which declares it.
+ * <p>
+ * Raw POMs are cached so parents and imported POMs are only read once; this class is thread-safe. */
+public class StreamingPomReader {
+
+    /** Finds (and downloads if necessary) the POM file for the given coordinates. */
+    public interface PomResolver {
+        File resolvePom(String groupId, String artifactId, String version) throws IOException;
+    }
+
+    private static final int MAX_PARENTS = 50;
+    private static final Pattern PROPERTY_REFERENCE = Pattern.compile("\\$\\{([^}]+)\\}");
+
+    final PomResolver resolver;
+    final XMLInputFactory xmlInputFactory;
+    final Map<String,RawPom> rawPoms = new ConcurrentHashMap<String,RawPom>();
+
+    public StreamingPomReader(PomResolver resolver) {
+        this.resolver = resolver;
+        xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+    }
+
+    /** The values of interest as written in a single POM file, uninterpolated. */
+    static class RawPom {
+        String file;
+        String groupId, artifactId, version, packaging, name, description, url, inceptionYear;
+        String parentGroupId, parentArtifactId, parentVersion;
+        Map<String,String> organization;
+        final Map<String,String> properties = new LinkedHashMap<String,String>();
+        final List<Map<String,String>> licenses = new ArrayList<Map<String,String>>();
+        final List<Map<String,String>> developers = new ArrayList<Map<String,String>>();
+        final List<Map<String,String>> contributors = new ArrayList<Map<String,String>>();
+        final List<Map<String,String>> dependencies = new ArrayList<Map<String,String>>();
+        final List<Map<String,String>> managedDependencies = new ArrayList<Map<String,String>>();
+    }
+
+    public ProjectMetadata read(String groupId, String artifactId, String version) throws IOException {
+        List<RawPom> chain = loadChain(groupId, artifactId, version);
+        RawPom pom = chain.get(0);
+        Map<String,String> props = properties(chain, 0);
+
+        String url = null;
+        for (int i=0; i<chain.size() && url==null; i++) {
+            if (chain.get(i).url!=null) url = interpolate(chain.get(i).url, i==0 ? props : properties(chain, i));
+        }
+        String description = null, inceptionYear = null;
+        Organization organization = null;
+        List<Map<String,String>> licenses = null, developers = null, contributors = null;
+        for (RawPom p: chain) {
+            if (description==null) description = p.description;
+            if (inceptionYear==null) inceptionYear = p.inceptionYear;
+            if (organization==null && p.organization!=null) {
+                organization = new Organization();
+                organization.setName(interpolate(p.organization.get("name"), props));
+                organization.setUrl(interpolate(p.organization.get("url"), props));
+            }
+            if (licenses==null && !p.licenses.isEmpty()) licenses = p.licenses;
+            if (developers==null && !p.developers.isEmpty()) developers = p.developers;
+            if (contributors==null && !p.contributors.isEmpty()) contributors = p.contributors;
+        }
+
+        List<License> licensesResult = new ArrayList<License>();
+        if (licenses!=null) for (Map<String,String> l: licenses) {
+            licensesResult.add(LicenseCodes.newLicense(interpolate(l.get("name"), props), interpolate(l.get("url"), props), interpolate(l.get("comments"), props)));
+        }
+        List<Contributor> contributorsResult = new ArrayList<Contributor>();
+        if (contributors!=null) for (Map<String,String> c: contributors) {
+            contributorsResult.add(toContributor(c, props, new Contributor()));
+        }
+        List<Developer> developersResult = new ArrayList<Developer>();
+        if (developers!=null) for (Map<String,String> c: developers) {
+            developersResult.add(toContributor(c, props, new Developer()));
+        }
+
+        String effectiveVersion = props.get("project.version");
+        return new ProjectMetadata(props.get("project.groupId"), props.get("project.artifactId"), effectiveVersion,
+            pom.packaging==null ? "jar" : interpolate(pom.packaging, props),
+            new Coords(props.get("project.groupId"), props.get("project.artifactId"), effectiveVersion, effectiveVersion,
+                pom.packaging==null ? "jar" : interpolate(pom.packaging, props), null),
+            null, null,
+            interpolate(pom.name, props), interpolate(description, props), url, interpolate(inceptionYear, props), organization,
+            licensesResult, contributorsResult, developersResult, dependencies(chain, props));
+    }
+
+    private static <T extends Contributor> T toContributor(Map<String,String> c, Map<String,String> props, T result) {
+        result.setName(interpolate(c.get("name"), props));
+        result.setUrl(interpolate(c.get("url"), props));
+        result.setOrganization(interpolate(c.get("organization"), props));
+        result.setOrganizationUrl(interpolate(c.get("organizationUrl"), props));
+        return result;
+    }
+
+    /** The POM and its parents, nearest first. */
+    protected List<RawPom> loadChain(String groupId, String artifactId, String version) throws IOException {
+        List<RawPom> chain = new ArrayList<RawPom>();
+        Set<String> seen = new LinkedHashSet<String>();
+        while (true) {
+            String id = groupId+":"+artifactId+":"+version;
+            if (!seen.add(id)) throw new IOException("Cycle in parents of "+chain.get(0).file+": "+seen);
+            if (seen.size()>MAX_PARENTS) throw new IOException("Too many parents of "+chain.get(0).file);
+            RawPom pom = loadRaw(groupId, artifactId, version);
+            chain.add(pom);
+            if (pom.parentArtifactId==null) return chain;
+            groupId = pom.parentGroupId;
+            artifactId = pom.parentArtifactId;
+            version = pom.parentVersion;
+            if (groupId==null || version==null) throw new IOException("Incomplete parent declared in "+pom.file);
+        }
+    }
+
+    /** Properties for interpolating values in the context of the POM at the given index in the chain. */
+    protected Map<String,String> properties(List<RawPom> chain, int index) {
+        Map<String,String> result = new LinkedHashMap<String,String>();
+        for (int i=chain.size()-1; i>=index; i--) {
+            result.putAll(chain.get(i).properties);
+        }
+        RawPom pom = chain.get(index);
+        String groupId = pom.groupId, version = pom.version;
+        if (groupId==null) groupId = pom.parentGroupId;
+        if (version==null) version = pom.parentVersion;
+        for (String prefix: new String[] { "project.", "pom.", "" }) {
+            result.put(prefix+"groupId", groupId);
+            result.put(prefix+"artifactId", pom.artifactId);
+            result.put(prefix+"version", version);
+            if (pom.parentArtifactId!=null) {
+                result.put(prefix+"parent.groupId", pom.parentGroupId);
+                result.put(prefix+"parent.artifactId", pom.parentArtifactId);
+                result.put(prefix+"parent.version", pom.parentVersion);
+            }
+        }
+        if (pom.name!=null) result.put("project.name", pom.name);
+        return result;
+    }
+
+    static String interpolate(String value, Map<String,String> props) {
+        if (value==null || value.indexOf("${")<0) return value;
+        String result = value;
+        // a few passes to allow properties referring to other properties
+        for (int pass=0; pass<10 && result.indexOf("${")>=0; pass++) {
+            Matcher m = PROPERTY_REFERENCE.matcher(result);
+            StringBuffer sb = new StringBuffer();
+            boolean changed = false;
+            while (m.find()) {
+                String v = props.get(m.group(1));
+                if (v==null) v = System.getProperty(m.group(1));
+                if (v!=null) changed = true;
+                m.appendReplacement(sb, Matcher.quoteReplacement(v!=null ? v : m.group()));
+            }
+            m.appendTail(sb);
+            result = sb.toString();
+            if (!changed) break;
+        }
+        return result;
+    }
+
+    protected List<Dependency> dependencies(List<RawPom> chain, Map<String,String> props) throws IOException {
+        // nearest declaration wins, but order is the child's then each parent's in turn
+        Map<String,Map<String,String>> deps = new LinkedHashMap<String,Map<String,String>>();
+        for (RawPom p: chain) {
+            for (Map<String,String> d: p.dependencies) {
+                String key = managementKey(d, props);
+                if (!deps.containsKey(key)) deps.put(key, d);
+            }
+        }
+        if (deps.isEmpty()) return Collections.emptyList();
+
+        Map<String,Map<String,String>> managed = new LinkedHashMap<String,Map<String,String>>();
+        addManagedDependencies(chain, props, managed, new LinkedHashSet<String>());
+
+        List<Dependency> result = new ArrayList<Dependency>();
+        for (Map.Entry<String,Map<String,String>> e: deps.entrySet()) {
+            Map<String,String> d = e.getValue();
+            Map<String,String> m = managed.get(e.getKey());
+            Dependency dep = new Dependency();
+            dep.setGroupId(interpolate(d.get("groupId"), props));
+            dep.setArtifactId(interpolate(d.get("artifactId"), props));
+            dep.setVersion(interpolate(valueOrManaged("version", d, m), props));
+            dep.setType(interpolate(orDefault(d.get("type"), "jar"), props));
+            dep.setClassifier(interpolate(d.get("classifier"), props));
+            dep.setScope(interpolate(orDefault(valueOrManaged("scope", d, m), "compile"), props));
+            String optional = interpolate(valueOrManaged("optional", d, m), props);
+            dep.setOptional("true".equalsIgnoreCase(optional==null ? null : optional.trim()));
+            result.add(dep);
+        }
+        return result;
+    }
+
+    /** Adds dependency management from the chain (nearest first) then from any imported POMs, without overwriting. */
+    protected void addManagedDependencies(List<RawPom> chain, Map<String,String> props, Map<String,Map<String,String>> managed, Set<String> importsSeen) throws IOException {
+        List<Map<String,String>> imports = new ArrayList<Map<String,String>>();
+        for (RawPom p: chain) {
+            for (Map<String,String> d: p.managedDependencies) {
+                if ("import".equals(interpolate(d.get("scope"), props)) && "pom".equals(interpolate(d.get("type"), props))) {
+                    imports.add(d);
+                    continue;
+                }
+                // interpolate now as values from imports are in a different context
+                Map<String,String> di = new LinkedHashMap<String,String>();
+                for (Map.Entry<String,String> e: d.entrySet()) di.put(e.getKey(), interpolate(e.getValue(), props));
+                String key = managementKey(di, props);
+                if (!managed.containsKey(key)) managed.put(key, di);
+            }
+        }
+        for (Map<String,String> d: imports) {
+            String groupId = interpolate(d.get("groupId"), props);
+            String artifactId = interpolate(d.get("artifactId"), props);
+            String version = interpolate(d.get("version"), props);
+            if (!importsSeen.add(groupId+":"+artifactId+":"+version)) continue;
+            List<RawPom> importChain = loadChain(groupId, artifactId, version);
+            addManagedDependencies(importChain, properties(importChain, 0), managed, importsSeen);
+        }
+    }
+
+    private static String valueOrManaged(String key, Map<String,String> d, Map<String,String> managed) {
+        String v = d.get(key);
+        if (v==null && managed!=null) v = managed.get(key);
+        return v;
+    }
+
+    private static String orDefault(String v, String defaultValue) {
+        return v==null || v.trim().isEmpty() ? defaultValue : v;
+    }
+
+    private static String managementKey(Map<String,String> d, Map<String,String> props) {
+        String classifier = interpolate(d.get("classifier"), props);
+        return interpolate(d.get("groupId"), props)+":"+interpolate(d.get("artifactId"), props)+":"+
+            interpolate(orDefault(d.get("type"), "jar"), props)+
+            (classifier==null || classifier.isEmpty() ? "" : ":"+classifier);
+    }
+
+    protected RawPom loadRaw(String groupId, String artifactId, String version) throws IOException {
+        String id = groupId+":"+artifactId+":"+version;
+        RawPom result = rawPoms.get(id);
+        if (result!=null) return result;
+        File f = resolver.resolvePom(groupId, artifactId, version);
+        if (f==null || !f.exists()) throw new IOException("POM not available for "+id);
+        result = parse(f);
+        rawPoms.put(id, result);
+        return result;
+    }
+
+    public RawPom parse(File f) throws IOException {
+        try (InputStream in = new FileInputStream(f)) {
+            RawPom result = parse(in);
+            result.file = f.getPath();
+            return result;
+        }
+    }
+
+    RawPom parse(InputStream in) throws IOException {
+        RawPom pom = new RawPom();
+        XMLStreamReader r = null;
+        try {
+            r = xmlInputFactory.createXMLStreamReader(in);
+            // path[0] is "project"
+            String[] path = new String[8];
+            int depth = 0;
+            Map<String,String> current = null;
+            StringBuilder text = new StringBuilder();
+            while (r.hasNext()) {
+                int event = r.next();
+                if (event==XMLStreamConstants.START_ELEMENT) {
+                    String name = r.getLocalName();
+                    if (depth==1 && !isOfInterest(name)) {
+                        skipElement(r);
+                        continue;
+                    }
+                    if (depth>=path.length) {
+                        skipElement(r);
+                        continue;
+                    }
+                    path[depth++] = name;
+                    text.setLength(0);
+                    if (isRecordStart(path, depth)) current = new LinkedHashMap<String,String>();
+                } else if (event==XMLStreamConstants.CHARACTERS || event==XMLStreamConstants.CDATA) {
+                    text.append(r.getText());
+                } else if (event==XMLStreamConstants.END_ELEMENT) {
+                    if (isRecordStart(path, depth)) {
+                        addRecord(pom, path, depth, current);
+                        current = null;
+                    } else {
+                        onValue(pom, path, depth, current, text.toString().trim());
+                    }
+                    text.setLength(0);
+                    depth--;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid POM: "+e, e);
+        } finally {
+            if (r!=null) {
+                try { r.close(); } catch (XMLStreamException e) { /* ignore */ }
+            }
+        }
+        return pom;
+    }
+
+    private static boolean isOfInterest(String topLevelElement) {
+        switch (topLevelElement) {
+        case "groupId": case "artifactId": case "version": case "packaging": case "name": case "description":
+        case "url": case "inceptionYear": case "parent": case "organization": case "properties":
+        case "licenses": case "developers": case "contributors": case "dependencies": case "dependencyManagement":
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private static void skipElement(XMLStreamReader r) throws XMLStreamException {
+        int level = 1;
+        while (level>0 && r.hasNext()) {
+            int event = r.next();
+            if (event==XMLStreamConstants.START_ELEMENT) level++;
+            else if (event==XMLStreamConstants.END_ELEMENT) level--;
+        }
+    }
+
+    /** Whether the element at the given depth is one whose children are collected into a map. */
+    private static boolean isRecordStart(String[] path, int depth) {
+        if (depth==2) return "organization".equals(path[1]);
+        if (depth==3) return ("licenses".equals(path[1]) && "license".equals(path[2]))
+            || ("developers".equals(path[1]) && "developer".equals(path[2]))
+            || ("contributors".equals(path[1]) && "contributor".equals(path[2]))
+            || ("dependencies".equals(path[1]) && "dependency".equals(path[2]));
+        if (depth==4) return "dependencyManagement".equals(path[1]) && "dependencies".equals(path[2]) && "dependency".equals(path[3]);
+        return false;
+    }
+
+    private static void addRecord(RawPom pom, String[] path, int depth, Map<String,String> record) {
+        if (depth==2) pom.organization = record;
+        else if ("licenses".equals(path[1])) pom.licenses.add(record);
+        else if ("developers".equals(path[1])) pom.developers.add(record);
+        else if ("contributors".equals(path[1])) pom.contributors.add(record);
+        else if ("dependencies".equals(path[1])) pom.dependencies.add(record);
+        else pom.managedDependencies.add(record);
+    }
+
+    private static void onValue(RawPom pom, String[] path, int depth, Map<String,String> current, String value) {
+        if (depth==2) {
+            switch (path[1]) {
+            case "groupId": pom.groupId = value; break;
+            case "artifactId": pom.artifactId = value; break;
+            case "version": pom.version = value; break;
+            case "packaging": pom.packaging = value; break;
+            case "name": pom.name = value; break;
+            case "description": pom.description = value; break;
+            case "url": pom.url = value; break;
+            case "inceptionYear": pom.inceptionYear = value; break;
+            default: break;
+            }
+        } else if (depth==3) {
+            if ("parent".equals(path[1])) {
+                if ("groupId".equals(path[2])) pom.parentGroupId = value;
+                else if ("artifactId".equals(path[2])) pom.parentArtifactId = value;
+                else if ("version".equals(path[2])) pom.parentVersion = value;
+            } else if ("properties".equals(path[1])) {
+                pom.properties.put(path[2], value);
+            } else if (current!=null) {
+                // organization
+                current.put(path[2], value);
+            }
+        } else if (current!=null && (depth==4 || depth==5) && isRecordStart(path, depth-1)) {
+            current.put(path[depth-1], value);
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+public class ThreadPools {
+
+    /** An executor running at most the given number of tasks at once,
+     * on virtual threads if the JVM supports them (java 21+) or else on ordinary daemon threads. */
+    public static ExecutorService newBoundedExecutor(int threads) {
+        ThreadFactory factory = virtualThreadFactory();
+        if (factory==null) {
+            final ThreadFactory base = Executors.defaultThreadFactory();
+            factory = new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = base.newThread(r);
+                    t.setDaemon(true);
+                    return t;
+                }
+            };
+        }
+        return Executors.newFixedThreadPool(Math.max(1, threads), factory);
+    }
+
+    /** Returns a factory for virtual threads, or null if not available;
+     * done reflectively as we compile against java 8. */
+    static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            // not supported (or preview not enabled)
+            return null;
+        }
+    }
+
+}
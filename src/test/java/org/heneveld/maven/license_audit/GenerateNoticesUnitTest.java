@@ -1,6 +1,7 @@
 package org.heneveld.maven.license_audit;
 
 import java.util.Arrays;
+import java.util.Collections;
 
 import junit.framework.TestCase;
 
@@ -27,4 +28,14 @@ public class GenerateNoticesUnitTest extends TestCase {
             Arrays.asList("http://brooklyn.incubator.apache.org/", "http://brooklyn.incubator.apache.org/foo/bar/")));
     }
     
+    public void testFormatNotices() {
+        // notices from overrides and extras are unchanged
+        assertEquals("Copyright Foo\nAll rights reserved\n    Copyright Bar",
+            GenerateNoticesMojo.formatNotices(Arrays.asList("Copyright Foo\nAll rights reserved", "Copyright Bar"), Collections.<String>emptySet()));
+        // but lines of NOTICE files from jars are indented
+        assertEquals("Foo\n    This product includes software developed at\n    The Apache Software Foundation",
+            GenerateNoticesMojo.formatNotices(Arrays.asList("Foo\nThis product includes software developed at\nThe Apache Software Foundation"),
+                Collections.singleton("Foo\nThis product includes software developed at\nThe Apache Software Foundation")));
+    }
+    
 }
@@ -4,11 +4,33 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import junit.framework.Assert;
 
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.artifact.repository.MavenArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.io.Files;
@@ -83,6 +105,257 @@ public class LicenseAuditMojoTest extends BetterAbstractMojoTestCase {
         assertOutputEqualsFileInCurrentTestProject("expected-report.txt");
     }
 
+    public void testSimpleParallelLoad() throws Exception {
+        LicenseAuditMojo mojo = getMojo("simple_pom");
+        mojo.loadThreads = 4;
+        // junit is test scope, so without this there would be nothing to load
+        mojo.includeDependencyScopes = "compile,runtime,test";
+        mojo.execute();
+        assertOutputEqualsFileInCurrentTestProject("expected-report-test-scope.txt");
+        assertNotNull(mojo.projectByIdCache.get("junit:junit:4.8.2"));
+        assertTrue(mojo.projectErrors.toString(), mojo.projectErrors.isEmpty());
+        assertEquals("CPL-1.0", getMojoReportedData("junit:junit:4.8.2", "License"));
+    }
+
+    public void testSimpleParallelCollect() throws Exception {
+        LicenseAuditMojo mojo = getMojo("simple_pom");
+        mojo.collectThreads = 4;
+        mojo.includeDependencyScopes = "compile,runtime,test";
+        mojo.execute();
+        assertOutputEqualsFileInCurrentTestProject("expected-report-test-scope.txt");
+        // junit's pom was read by the prefetcher, not only by the collector
+        assertTrue("prefetched: "+mojo.descriptorsPrefetched, mojo.descriptorsPrefetched > 0);
+    }
+
+    public void testSimpleCollectOnly() throws Exception {
+        LicenseAuditMojo mojo = getMojo("simple_pom");
+        mojo.collectOnly = true;
+        mojo.includeDependencyScopes = "compile,runtime,test";
+        mojo.execute();
+        assertOutputEqualsFileInCurrentTestProject("expected-report-test-scope.txt");
+    }
+
+    public void testSimpleStreamingPomReader() throws Exception {
+        LicenseAuditMojo mojo = getMojo("simple_pom");
+        mojo.streamingPomReader = true;
+        mojo.includeDependencyScopes = "compile,runtime,test";
+        mojo.execute();
+        assertOutputEqualsFileInCurrentTestProject("expected-report-test-scope.txt");
+    }
+
+    public void testSimpleMetadataCache() throws Exception {
+        File cacheDir = new File(getBasedir(), "target/test-metadata-cache");
+        LicenseAuditMojo mojo = getMojo("simple_pom");
+        mojo.metadataCacheDir = cacheDir.getAbsolutePath();
+        mojo.includeDependencyScopes = "compile,runtime,test";
+        mojo.execute();
+        assertOutputEqualsFileInCurrentTestProject("expected-report-test-scope.txt");
+        
+        // second run should come from the cache and give the same result
+        mojo = getMojo("simple_pom");
+        mojo.metadataCacheDir = cacheDir.getAbsolutePath();
+        mojo.includeDependencyScopes = "compile,runtime,test";
+        mojo.execute();
+        assertTrue("hits: "+mojo.metadataCache.getHits(), mojo.metadataCache.getHits() > 0);
+        assertEquals(0, mojo.metadataCache.getMisses());
+        assertOutputEqualsFileInCurrentTestProject("expected-report-test-scope.txt");
+    }
+
+    private LicenseAuditMojo getIncrementalMojo(File output) throws Exception {
+        LicenseAuditMojo mojo = getMojo("simple_pom");
+        mojo.includeDependencyScopes = "compile,runtime,test";
+        mojo.incremental = true;
+        mojo.outputFilePath = output.getAbsolutePath();
+        mojo.outputWriter = null;
+        mojo.metadataCacheDir = new File(getBasedir(), "target/test-incremental/cache").getAbsolutePath();
+        return mojo;
+    }
+    
+    public void testSimpleIncremental() throws Exception {
+        File output = new File(getBasedir(), "target/test-incremental/report.txt");
+        output.delete();
+        new File(output.getPath()+".fingerprint").delete();
+        
+        LicenseAuditMojo mojo = getIncrementalMojo(output);
+        mojo.execute();
+        assertFalse(mojo.upToDate);
+        String expected = Files.toString(getTestFileInCurrentTestProject("expected-report-test-scope.txt"), Charsets.UTF_8);
+        assertEquals(expected.trim(), Files.toString(output, Charsets.UTF_8).trim());
+        assertTrue(new File(output.getPath()+".fingerprint").exists());
+        
+        // nothing changed so nothing loaded or written
+        long written = output.lastModified();
+        mojo = getIncrementalMojo(output);
+        mojo.execute();
+        assertTrue(mojo.upToDate);
+        assertFalse(mojo.projectByIdCache.containsKey("junit:junit:4.8.2"));
+        assertEquals(written, output.lastModified());
+        
+        // parameters changed so regenerated
+        mojo = getIncrementalMojo(output);
+        mojo.format = "list";
+        mojo.execute();
+        assertFalse(mojo.upToDate);
+        assertTrue(Files.toString(output, Charsets.UTF_8).startsWith("org.heneveld.maven.license_audit:test-brooklyn-pom:0.1: "));
+    }
+
+    public void testSimpleIncrementalStillWritesSnapshot() throws Exception {
+        File output = new File(getBasedir(), "target/test-incremental/report-snapshot.txt");
+        File snapshot = new File(getBasedir(), "target/test-incremental/report.snapshot");
+        output.delete();
+        new File(output.getPath()+".fingerprint").delete();
+        
+        LicenseAuditMojo mojo = getIncrementalMojo(output);
+        mojo.writeSnapshot = snapshot.getAbsolutePath();
+        mojo.execute();
+        assertFalse(mojo.upToDate);
+        assertTrue(snapshot.exists());
+        
+        // the output is up to date, but the snapshot is written again
+        snapshot.delete();
+        long written = output.lastModified();
+        mojo = getIncrementalMojo(output);
+        mojo.writeSnapshot = snapshot.getAbsolutePath();
+        mojo.execute();
+        assertTrue(mojo.upToDate);
+        assertEquals(written, output.lastModified());
+        assertTrue(snapshot.exists());
+        
+        // and the snapshot settings are part of the fingerprint
+        mojo = getIncrementalMojo(output);
+        mojo.execute();
+        assertFalse(mojo.upToDate);
+    }
+
+    public void testSimpleSharedProjectCache() throws Exception {
+        LicenseAuditMojo mojo = getMojo("simple_pom");
+        mojo.includeDependencyScopes = "compile,runtime,test";
+        mojo.execute();
+        assertOutputEqualsFileInCurrentTestProject("expected-report-test-scope.txt");
+        int loaded = mojo.sharedProjectCache.size();
+        assertTrue("loaded: "+loaded, loaded > 0);
+        
+        // another execution in the same session (as for another module) should reuse the projects
+        MavenSession session = mojo.mavenSession;
+        mojo = getMojo("simple_pom");
+        mojo.mavenSession = session;
+        mojo.includeDependencyScopes = "compile,runtime,test";
+        mojo.execute();
+        assertEquals(loaded, mojo.sharedProjectCache.size());
+        assertTrue("hits: "+mojo.sharedProjectCache.getHits(), mojo.sharedProjectCache.getHits() >= loaded);
+        assertOutputEqualsFileInCurrentTestProject("expected-report-test-scope.txt");
+    }
+
+    public void testSharedProjectCacheKeyIncludesRepositories() throws Exception {
+        LicenseAuditMojo mojo = getMojo("simple_pom");
+        org.apache.maven.artifact.Artifact junit = new org.apache.maven.artifact.DefaultArtifact(
+            "junit", "junit", "4.8.2", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        ProjectBuildingRequest request = new DefaultProjectBuildingRequest(mojo.mavenSession.getProjectBuildingRequest());
+        String key = mojo.getSharedProjectCacheKey(junit, request);
+        assertEquals(key, mojo.getSharedProjectCacheKey(junit, new DefaultProjectBuildingRequest(request)));
+        
+        // a module with another repository doesn't share another module's loads (or failures)
+        List<ArtifactRepository> repos = new ArrayList<ArtifactRepository>();
+        if (request.getRemoteRepositories()!=null) repos.addAll(request.getRemoteRepositories());
+        repos.add(new MavenArtifactRepository("extra", "https://repo.example.com/maven2", new DefaultRepositoryLayout(),
+            new ArtifactRepositoryPolicy(), new ArtifactRepositoryPolicy()));
+        request.setRemoteRepositories(repos);
+        assertFalse(key.equals(mojo.getSharedProjectCacheKey(junit, request)));
+    }
+
+    public void testSimpleSnapshot() throws Exception {
+        File snapshot = new File(getBasedir(), "target/test-snapshot/simple.snapshot");
+        snapshot.getParentFile().mkdirs();
+        snapshot.delete();
+        LicenseAuditMojo mojo = getMojo("simple_pom");
+        mojo.includeDependencyScopes = "compile,runtime,test";
+        mojo.writeSnapshot = snapshot.getAbsolutePath();
+        mojo.execute();
+        assertOutputEqualsFileInCurrentTestProject("expected-report-test-scope.txt");
+        assertTrue(snapshot.exists());
+
+        // rendered from the snapshot, with nothing available to resolve or load projects
+        mojo = getMojo("simple_pom");
+        mojo.includeDependencyScopes = "compile,runtime,test";
+        mojo.readSnapshot = snapshot.getAbsolutePath();
+        mojo.depsResolver = null;
+        mojo.projectBuilder = null;
+        mojo.repositorySystem = null;
+        mojo.execute();
+        assertOutputEqualsFileInCurrentTestProject("expected-report-test-scope.txt");
+        assertEquals("CPL-1.0", getMojoReportedData("junit:junit:4.8.2", "License"));
+    }
+
+    public void testSimpleListWithoutLicenseInfoLoadsNoProjects() throws Exception {
+        LicenseAuditMojo mojo = getMojo("simple_pom");
+        mojo.includeDependencyScopes = "compile,runtime,test";
+        mojo.format = "list";
+        setVariableValueToObject(mojo, "suppressLicenseInfo", true);
+        mojo.execute();
+        assertEquals("org.heneveld.maven.license_audit:test-brooklyn-pom:0.1\njunit:junit:4.8.2", getMojoOutput().trim());
+        assertEquals(Collections.singleton("org.heneveld.maven.license_audit:test-brooklyn-pom:0.1"), mojo.projectByIdCache.keySet());
+    }
+
+    public void testSimpleOnlyExtrasResolvesNothing() throws Exception {
+        LicenseAuditMojo mojo = getMojo("simple_pom");
+        mojo.includeDependencyScopes = "compile,runtime,test";
+        mojo.format = "list";
+        mojo.onlyExtras = true;
+        mojo.extrasFile = new File(getBasedir(), "src/test/resources/org/heneveld/maven/license_audit/util/overrides-sample-1.yaml").getAbsolutePath();
+        mojo.execute();
+        assertTrue("Output:\n"+getMojoOutput(), getMojoOutput().startsWith("foo.group:code:1.0: Apache-2.0\n"));
+        assertFalse("Output:\n"+getMojoOutput(), getMojoOutput().contains("junit"));
+        assertNull(mojo.graph.getNodes("org.heneveld.maven.license_audit:test-brooklyn-pom:0.1"));
+    }
+
+    public void testMultiModuleAggregate() throws Exception {
+        currentTestProjectSubdir = "multi_module";
+        ProjectBuildingRequest buildingRequest = newMavenSession().getProjectBuildingRequest();
+        ProjectBuilder projectBuilder = lookup(ProjectBuilder.class);
+        List<MavenProject> reactor = new ArrayList<MavenProject>();
+        for (String pom: Arrays.asList("pom.xml", "module-a/pom.xml", "module-b/pom.xml")) {
+            reactor.add(projectBuilder.build(getTestFileInCurrentTestProject(pom), buildingRequest).getProject());
+        }
+        AggregateLicenseAuditMojo mojo = (AggregateLicenseAuditMojo) lookupConfiguredMojo(reactor.get(0), "aggregate");
+        assertNotNull( mojo );
+        mojo.mavenSession.setProjects(reactor);
+        mojo.outputWriter = mojoOutputWriter = new StringWriter();
+        mojo.reportedData = mojoReportedData = new LinkedHashMap<String,Map<String,String>>();
+        mojo.setForcedReleaseYear(2016);
+        mojo.execute();
+        
+        assertEquals("org.heneveld.maven.license_audit:test-multi-module-a:0.1\norg.heneveld.maven.license_audit:test-multi-module-b:0.1", 
+            getMojoReportedData("junit:junit:4.8.2", "Reactor Modules"));
+        assertEquals("org.heneveld.maven.license_audit:test-multi-module-b:0.1", 
+            getMojoReportedData("org.hamcrest:hamcrest-core:1.3", "Reactor Modules"));
+        assertEquals("(root)", getMojoReportedData("org.heneveld.maven.license_audit:test-multi-module-a:0.1", "Artifacts Included"));
+        assertOutputEqualsFileInCurrentTestProject("expected-report.txt");
+    }
+
+    public void testDeepGraphCollected() throws Exception {
+        LicenseAuditMojo mojo = new LicenseAuditMojo();
+        mojo.setLog(new DefaultLog(new ConsoleLogger(Logger.LEVEL_WARN, "test")));
+        mojo.artifactHandler = new DefaultArtifactHandler("jar");
+        mojo.includeAllDependencyScopes = true;
+        mojo.maxDepth = Integer.MAX_VALUE;
+        mojo.deferredProjectLoads = new ArrayList<org.apache.maven.artifact.Artifact>();
+        
+        // deeper than can be walked recursively with a default stack
+        int depth = 100000;
+        DefaultDependencyNode root = new DefaultDependencyNode(new DefaultArtifact("g:a0:1"));
+        DefaultDependencyNode n = root;
+        for (int i=1; i<depth; i++) {
+            DefaultDependencyNode child = new DefaultDependencyNode(new Dependency(new DefaultArtifact("g:a"+i+":1"), "compile"));
+            n.setChildren(Arrays.<DependencyNode>asList(child));
+            n = child;
+        }
+        mojo.collectDeps(root, null, 0);
+        
+        assertEquals(depth, mojo.deferredProjectLoads.size());
+        assertTrue(mojo.graph.isIncludedProject("g:a"+(depth-1)+":1"));
+        assertEquals(Arrays.asList("g:a"+(depth-2)+":1"), mojo.graph.getParents("g:a"+(depth-1)+":1"));
+    }
+
     public void testSimpleTests() throws Exception {
         LicenseAuditMojo mojo = getMojo("simple_pom");
         mojo.includeDependencyScopes = "compile,runtime,test";
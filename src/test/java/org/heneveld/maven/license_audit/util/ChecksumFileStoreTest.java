@@ -0,0 +1,62 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class ChecksumFileStoreTest extends TempDirTestCase {
+
+    private static final ChecksumFileStore.Codec<String> STRINGS = new ChecksumFileStore.Codec<String>() {
+        public void write(String value, DataOutput out) throws IOException {
+            out.writeUTF(value);
+        }
+        public String read(DataInput in) throws IOException {
+            return in.readUTF();
+        }
+    };
+
+    public void testGetAndPut() throws IOException {
+        ChecksumFileStore<String> store = new ChecksumFileStore<String>(dir, STRINGS);
+        assertNull(store.get("a/b.bin", "c1"));
+        store.put("a/b.bin", "c1", "one");
+        assertEquals("one", store.get("a/b.bin", "c1"));
+        // another checksum is a miss, until it is put
+        assertNull(store.get("a/b.bin", "c2"));
+        store.put("a/b.bin", "c2", "two");
+        assertEquals("two", store.get("a/b.bin", "c2"));
+        assertNull(store.get("a/b.bin", "c1"));
+        assertNull(store.get("a/b.bin", null));
+        assertEquals(2, store.getHits());
+        assertEquals(4, store.getMisses());
+        assertEquals(1, new File(dir, "a").list().length);
+    }
+
+    public void testCorruptIsMiss() throws IOException {
+        ChecksumFileStore<String> store = new ChecksumFileStore<String>(dir, STRINGS);
+        Files.write(new File(dir, "x.bin").toPath(), new byte[] { 0, 5, 'c' });
+        assertNull(store.get("x.bin", "c"));
+        store.put("x.bin", "c", "fixed");
+        assertEquals("fixed", store.get("x.bin", "c"));
+    }
+
+    public void testUnwritable() throws IOException {
+        File notADir = new File(dir, "file");
+        Files.write(notADir.toPath(), new byte[0]);
+        ChecksumFileStore<String> store = new ChecksumFileStore<String>(notADir, STRINGS);
+        try {
+            store.put("x.bin", "c", "value");
+            fail("should not be writable");
+        } catch (IOException e) {
+            // expected
+        }
+        assertNull(store.get("x.bin", "c"));
+    }
+
+    public void testHex() {
+        assertEquals("00ff10a5", Checksums.toHex(new byte[] { 0, (byte) 0xff, 0x10, (byte) 0xa5 }));
+        assertEquals("da39a3ee5e6b4b0d3255bfef95601890afd80709", Checksums.toHex(Checksums.newDigest("SHA-1")));
+    }
+
+}
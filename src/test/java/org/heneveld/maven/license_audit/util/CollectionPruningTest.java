@@ -0,0 +1,63 @@
+package org.heneveld.maven.license_audit.util;
+
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.collection.DependencyTraverser;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.util.graph.selector.OptionalDependencySelector;
+
+import junit.framework.TestCase;
+
+/** Tests {@link RootScopeDependencySelector} and {@link DepthLimitingDependencyTraverser}. */
+public class CollectionPruningTest extends TestCase {
+
+    private static Dependency dep(String scope, boolean optional) {
+        return new Dependency(new DefaultArtifact("foo.group:code:1.0"), scope, optional);
+    }
+
+    public void testSelectorScopesAndOptional() {
+        DependencySelector root = new RootScopeDependencySelector(null, ",compile,runtime,", true);
+        DependencySelector direct = root.deriveChildSelector(null);
+        assertTrue(direct.selectDependency(dep("compile", false)));
+        assertFalse(direct.selectDependency(dep("test", false)));
+        assertFalse(direct.selectDependency(dep("compile", true)));
+
+        DependencySelector transitive = direct.deriveChildSelector(null);
+        // scopes are only applied at the root
+        assertTrue(transitive.selectDependency(dep("test", false)));
+        assertFalse(transitive.selectDependency(dep("compile", true)));
+
+        DependencySelector all = new RootScopeDependencySelector(null, null, false).deriveChildSelector(null);
+        assertTrue(all.selectDependency(dep("test", false)));
+        assertTrue(all.selectDependency(dep("compile", true)));
+    }
+
+    public void testSelectorValueEquality() {
+        DependencySelector s1 = new RootScopeDependencySelector(new OptionalDependencySelector(), ",compile,", false);
+        DependencySelector s2 = new RootScopeDependencySelector(new OptionalDependencySelector(), ",compile,", false);
+        assertEquals(s1, s2);
+        assertEquals(s1.hashCode(), s2.hashCode());
+        assertEquals(s1.deriveChildSelector(null), s2.deriveChildSelector(null));
+        assertFalse(s1.equals(s1.deriveChildSelector(null)));
+        assertFalse(s1.equals(new RootScopeDependencySelector(new OptionalDependencySelector(), ",runtime,", false)));
+
+        // deeper levels are all the same
+        DependencySelector deep = s1;
+        for (int i=0; i<5; i++) deep = deep.deriveChildSelector(null);
+        assertEquals(deep, s2.deriveChildSelector(null).deriveChildSelector(null).deriveChildSelector(null));
+    }
+
+    public void testTraverserStopsBeyondMaxDepth() {
+        DependencyTraverser t = new DepthLimitingDependencyTraverser(null, 1);
+        DependencyTraverser direct = t.deriveChildTraverser(null);
+        assertTrue(direct.traverseDependency(dep("compile", false)));
+        DependencyTraverser transitive = direct.deriveChildTraverser(null);
+        // present in the graph but not traversed
+        assertFalse(transitive.traverseDependency(dep("compile", false)));
+        assertSame(transitive, transitive.deriveChildTraverser(null));
+
+        assertEquals(direct, new DepthLimitingDependencyTraverser(null, 1).deriveChildTraverser(null));
+        assertFalse(direct.equals(new DepthLimitingDependencyTraverser(null, 2).deriveChildTraverser(null)));
+    }
+
+}
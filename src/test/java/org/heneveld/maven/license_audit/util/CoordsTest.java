@@ -0,0 +1,55 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.lang.ref.WeakReference;
+
+import org.apache.maven.model.Dependency;
+
+import junit.framework.TestCase;
+
+public class CoordsTest extends TestCase {
+
+    private static Dependency dependency(String groupId, String artifactId, String version, String classifier) {
+        Dependency d = new Dependency();
+        d.setGroupId(groupId);
+        d.setArtifactId(artifactId);
+        d.setVersion(version);
+        d.setClassifier(classifier);
+        return d;
+    }
+
+    public void testStrings() {
+        Coords c = Coords.of(dependency("g", "a", "1.0", "tests"));
+        assertEquals("g:a:1.0", c.normal());
+        assertEquals("g:a", c.unversioned());
+        assertEquals("g:a:jar:tests:1.0", c.baseArtifact());
+        assertEquals("g:a:jar:tests", c.unversionedArtifact());
+        assertEquals("g:a:jar:tests:1.0", c.realArtifact());
+    }
+
+    public void testInternedAndMemoized() {
+        Coords c1 = Coords.of(dependency("g", "a", "1.0", null));
+        Coords c2 = Coords.of(dependency("g", "a", "1.0", null));
+        assertSame(c1, c2);
+        assertSame(c1.normal(), c2.normal());
+        assertSame(c1.baseArtifact(), c2.baseArtifact());
+
+        Coords c3 = new Coords("g", "a", "1.0", "1.0", "jar", null);
+        assertEquals(c1, c3);
+        assertEquals(c1.hashCode(), c3.hashCode());
+        assertSame(c1, c3.intern());
+        
+        assertFalse(c1.equals(Coords.of(dependency("g", "a", "1.1", null))));
+        assertFalse(c1.equals(Coords.of(dependency("g", "a", "1.0", "tests"))));
+    }
+
+    public void testInternedHeldWeakly() throws InterruptedException {
+        WeakReference<Coords> ref = new WeakReference<Coords>(Coords.of(dependency("g", "weak", "1.0", null)));
+        for (int i=0; i<50 && ref.get()!=null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("interned coords should not be retained", ref.get());
+        assertEquals("g:weak:1.0", Coords.of(dependency("g", "weak", "1.0", null)).normal());
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.util.Arrays;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+
+import junit.framework.TestCase;
+
+public class DependencyGraphIndexTest extends TestCase {
+
+    private static Coords coords(String groupId, String artifactId, String version) {
+        return new Coords(groupId, artifactId, version, version, "jar", null).intern();
+    }
+
+    private static DefaultArtifact artifact(Coords c) {
+        return new DefaultArtifact(c.groupId, c.artifactId, c.version, null, "jar", null, new DefaultArtifactHandler("jar"));
+    }
+
+    public void testViews() {
+        DependencyGraphIndex g = new DependencyGraphIndex();
+        Coords root = coords("g", "root", "1"), a1 = coords("g", "a", "1"), a2 = coords("g", "a", "2"), b = coords("g", "b", "1");
+        g.include(root, artifact(root));
+        g.addParent(a1, root);
+        g.addParent(b, root);
+        g.include(a1, artifact(a1));
+        g.addParent(a2, b);
+        g.addParent(a2, b);
+        // a2 seen but not included (e.g. excluded scope)
+
+        assertTrue(g.isIncludedProject("g:a:1"));
+        assertFalse(g.isIncludedProject("g:a:2"));
+        assertFalse(g.isIncludedProject("g:b:1"));
+        assertFalse(g.isIncludedProject("g:c:1"));
+        assertTrue(g.isIncludedBaseArtifact("g:a:jar:1"));
+        assertFalse(g.isIncludedBaseArtifact("g:a:jar:2"));
+        assertEquals("g:a:1", g.getProjectOfBaseArtifact("g:a:jar:1"));
+        assertEquals("g:a:jar:1", g.getIncludedBaseArtifact("g:a:jar"));
+        assertEquals("g:a:1", g.getIncludedProject("g:a"));
+        assertNull(g.getIncludedProject("g:b"));
+
+        assertEquals(Arrays.asList("g:root:1"), g.getParents("g:a:1"));
+        assertEquals(Arrays.asList("g:b:1"), g.getParents("g:a:2"));
+        assertNull(g.getParents("g:root:1"));
+        assertNull(g.getParents("g:c:1"));
+        assertEquals(1, g.getArtifacts("g:a:1").size());
+        assertNull(g.getArtifacts("g:a:2"));
+        
+        // later included versions win
+        g.include(a2, artifact(a2));
+        assertEquals("g:a:2", g.getIncludedProject("g:a"));
+        assertEquals("g:a:jar:2", g.getIncludedBaseArtifact("g:a:jar"));
+        // only those included, in the order included
+        assertEquals(Arrays.asList("g:root:1", "g:a:1", "g:a:2"), g.getIncludedProjects());
+    }
+
+    private static DefaultDependencyNode node(Coords c, String scope, boolean optional) {
+        org.eclipse.aether.artifact.DefaultArtifact a = new org.eclipse.aether.artifact.DefaultArtifact(c.groupId, c.artifactId, "jar", c.version);
+        return scope==null ? new DefaultDependencyNode(a) : new DefaultDependencyNode(new Dependency(a, scope, optional));
+    }
+
+    public void testNodesKeptWithoutGraph() {
+        DependencyGraphIndex g = new DependencyGraphIndex();
+        Coords root = coords("g", "root", "1"), a = coords("g", "a", "1"), b = coords("g", "b", "1");
+        DefaultDependencyNode rootNode = node(root, null, false);
+        DefaultDependencyNode aNode = node(a, "compile", false);
+        DefaultDependencyNode bNode = node(b, "runtime", true);
+        aNode.setChildren(Arrays.<org.eclipse.aether.graph.DependencyNode>asList(bNode));
+        rootNode.setChildren(Arrays.<org.eclipse.aether.graph.DependencyNode>asList(aNode, node(b, "runtime", true)));
+        g.addNode(root, rootNode);
+        g.addNode(a, aNode);
+
+        GraphNode r = g.getNodes("g:root:1").get(0);
+        assertNull(r.scope);
+        assertEquals(2, r.getChildren().size());
+        GraphNode a1 = g.getNodes("g:a:1").get(0);
+        assertEquals("compile", a1.scope);
+        assertFalse(a1.optional);
+        GraphNode b1 = a1.getChildren().get(0);
+        assertEquals("runtime", b1.scope);
+        assertTrue(b1.optional);
+        assertEquals("g:b:jar:1", b1.coords.baseArtifact());
+        assertTrue(b1.getChildren().isEmpty());
+        // equal children are held once
+        assertSame(b1, r.getChildren().get(1));
+        assertNull(g.getNodes("g:b:1"));
+    }
+
+    public void testGrows() {
+        DependencyGraphIndex g = new DependencyGraphIndex();
+        Coords root = coords("g", "root", "1");
+        for (int i=0; i<1000; i++) {
+            Coords c = coords("g", "a"+i, "1");
+            g.addParent(c, root);
+            g.include(c, artifact(c));
+            g.addReactorModule(c, root);
+        }
+        assertTrue(g.isIncludedProject("g:a999:1"));
+        assertEquals(Arrays.asList("g:root:1"), g.getParents("g:a500:1"));
+        assertEquals(Arrays.asList("g:root:1"), g.getReactorModules("g:a0:1"));
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.model.License;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+
+import junit.framework.TestCase;
+
+public class DependencySnapshotTest extends TestCase {
+
+    private static DefaultDependencyNode node(String coords, String scope, boolean optional) {
+        return new DefaultDependencyNode(new Dependency(new DefaultArtifact(coords), scope, optional));
+    }
+
+    public void testRoundTrip() throws IOException {
+        DefaultDependencyNode root = new DefaultDependencyNode(new DefaultArtifact("foo.group:code:jar:1.0"));
+        DefaultDependencyNode a = node("foo.group:a:jar:1.0", "compile", false);
+        DefaultDependencyNode b = node("foo.group:b:jar:tests:2.0", "test", true);
+        DefaultDependencyNode shared = node("foo.group:shared:jar:3.0", "runtime", false);
+        a.setChildren(Arrays.<DependencyNode>asList(shared));
+        b.setChildren(Arrays.<DependencyNode>asList(shared));
+        root.setChildren(Arrays.<DependencyNode>asList(a, b));
+
+        Model m = new Model();
+        m.setGroupId("foo.group");
+        m.setArtifactId("code");
+        m.setVersion("1.0");
+        m.addLicense(LicenseCodes.newLicense("Apache 2", null, null));
+
+        DependencySnapshot s = new DependencySnapshot();
+        s.rootProject = "foo.group:code:1.0";
+        s.reactorProjects.add("foo.group:code:1.0");
+        s.aggregate = true;
+        s.graphs.put("foo.group:code:1.0", root);
+        s.projects.put("foo.group:code:1.0", ProjectMetadata.of(new MavenProject(m)));
+        s.releaseYears.put("foo.group:code:1.0", 2016);
+        s.errors.put("foo.group:missing:1.0", Arrays.asList("not found"));
+        s.jarLicenses.put("foo.group:a:1.0", new JarLicenseInfo("MIT", Collections.singletonMap("META-INF/LICENSE", "MIT License"),
+            Collections.singletonMap("META-INF/NOTICE", "Copyright Foo"), Collections.<String,List<License>>emptyMap()));
+
+        File f = File.createTempFile("snapshot", ".bin");
+        try {
+            s.writeTo(f);
+            DependencySnapshot s2 = DependencySnapshot.readFrom(f);
+
+            assertEquals("foo.group:code:1.0", s2.rootProject);
+            assertTrue(s2.aggregate);
+            assertEquals(s.reactorProjects, s2.reactorProjects);
+            assertEquals(Integer.valueOf(2016), s2.releaseYears.get("foo.group:code:1.0"));
+            assertEquals(Arrays.asList("not found"), s2.errors.get("foo.group:missing:1.0"));
+            assertEquals("Apache 2", s2.projects.get("foo.group:code:1.0").licenses.get(0).getName());
+            JarLicenseInfo jar = s2.jarLicenses.get("foo.group:a:1.0");
+            assertEquals("MIT", jar.bundleLicense);
+            assertEquals("MIT License", jar.licenseTexts.get("META-INF/LICENSE"));
+            assertEquals("Copyright Foo", jar.noticeTexts.get("META-INF/NOTICE"));
+            assertEquals(1, s2.jarLicenses.size());
+
+            DependencyNode root2 = s2.graphs.get("foo.group:code:1.0");
+            assertNull(root2.getDependency());
+            assertEquals("code", root2.getArtifact().getArtifactId());
+            assertEquals(2, root2.getChildren().size());
+            DependencyNode b2 = root2.getChildren().get(1);
+            assertEquals("tests", b2.getArtifact().getClassifier());
+            assertEquals("2.0", b2.getArtifact().getVersion());
+            assertEquals("test", b2.getDependency().getScope());
+            assertTrue(b2.getDependency().isOptional());
+            // shared nodes remain shared
+            assertSame(root2.getChildren().get(0).getChildren().get(0), b2.getChildren().get(0));
+            assertEquals("runtime", b2.getChildren().get(0).getDependency().getScope());
+        } finally {
+            f.delete();
+        }
+    }
+
+    public void testRejectsOtherFiles() throws IOException {
+        File f = File.createTempFile("snapshot", ".bin");
+        try {
+            Files.write(f.toPath(), new byte[] { 0, 3, 'f', 'o', 'o' });
+            DependencySnapshot.readFrom(f);
+            fail("should have rejected");
+        } catch (IOException e) {
+            assertTrue(e.toString(), e.getMessage().contains("Not a dependency snapshot"));
+        } finally {
+            f.delete();
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.model.License;
+
+public class JarLicenseScannerTest extends TempDirTestCase {
+
+    private File newJar() throws IOException {
+        File jar = new File(dir, "foo-1.0.jar");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            put(out, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\r\nBundle-License: Apache-2.0\r\n\r\n");
+            put(out, "META-INF/LICENSE", "Apache License\nVersion 2.0, January 2004\n");
+            put(out, "META-INF/NOTICE.txt", "Foo\nCopyright 2010 The Foo Authors\n");
+            put(out, "META-INF/maven/foo.group/foo/pom.xml", "<project><modelVersion>4.0.0</modelVersion>"
+                + "<groupId>foo.group</groupId><artifactId>foo</artifactId><version>1.0</version>"
+                + "<licenses><license><name>MIT License</name></license></licenses></project>");
+            put(out, "org/foo/license/Foo.class", "not really a class");
+            put(out, "docs/LICENSE", "not at the root");
+        }
+        return jar;
+    }
+
+    private static void put(ZipOutputStream out, String name, String text) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+    }
+
+    public void testScan() throws IOException {
+        JarLicenseInfo info = JarLicenseScanner.scanUncached(newJar());
+        assertEquals("Apache-2.0", info.bundleLicense);
+        assertEquals("[META-INF/LICENSE]", info.licenseTexts.keySet().toString());
+        assertTrue(info.licenseTexts.get("META-INF/LICENSE").startsWith("Apache License"));
+        assertEquals("[META-INF/NOTICE.txt]", info.noticeTexts.keySet().toString());
+        assertEquals("[foo.group:foo:1.0]", info.embeddedPomLicenses.keySet().toString());
+        assertEquals("MIT License", info.embeddedPomLicenses.get("foo.group:foo:1.0").get(0).getName());
+
+        // the manifest header is preferred to the embedded pom
+        List<License> licenses = info.getLicenses("foo.group", "foo");
+        assertEquals(1, licenses.size());
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCode(licenses.get(0)));
+    }
+
+    public void testChecksumPrefersSidecar() throws IOException {
+        File jar = newJar();
+        String computed = JarLicenseScanner.checksum(jar);
+        assertTrue(computed, computed.matches("[0-9a-f]{40}"));
+        Files.write(new File(jar.getPath()+".sha1").toPath(), "0123456789ABCDEF0123456789abcdef01234567  foo-1.0.jar\n".getBytes(StandardCharsets.US_ASCII));
+        assertEquals("0123456789abcdef0123456789abcdef01234567", JarLicenseScanner.checksum(jar));
+    }
+
+    public void testCacheDir() throws IOException {
+        File jar = newJar();
+        File cacheDir = new File(dir, "cache");
+        JarLicenseScanner s1 = new JarLicenseScanner(cacheDir, null);
+        JarLicenseInfo info = s1.scan(jar);
+        assertEquals(0, s1.getHits());
+        assertEquals(1, s1.getMisses());
+
+        JarLicenseScanner s2 = new JarLicenseScanner(cacheDir, null);
+        JarLicenseInfo info2 = s2.scan(jar);
+        assertEquals(1, s2.getHits());
+        assertEquals(0, s2.getMisses());
+        assertEquals(info.toString(), info2.toString());
+        assertEquals(info.licenseTexts, info2.licenseTexts);
+        assertEquals("MIT License", info2.embeddedPomLicenses.get("foo.group:foo:1.0").get(0).getName());
+    }
+
+    public void testUnwritableCacheDirStillScanned() throws IOException {
+        File jar = newJar();
+        // a file where the cache directory should be, so nothing can be written there
+        File cacheDir = new File(dir, "not-a-dir");
+        Files.write(cacheDir.toPath(), new byte[0]);
+        JarLicenseScanner s = new JarLicenseScanner(cacheDir, null);
+        assertEquals("Apache-2.0", s.scan(jar).bundleLicense);
+        assertEquals(1, s.getMisses());
+    }
+
+    public void testParseBundleLicense() {
+        List<License> ll = JarLicenseInfo.parseBundleLicense("Apache-2.0");
+        assertEquals(1, ll.size());
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCode(ll.get(0)));
+
+        ll = JarLicenseInfo.parseBundleLicense("https://opensource.org/licenses/MIT");
+        assertEquals(1, ll.size());
+        assertEquals("https://opensource.org/licenses/MIT", ll.get(0).getUrl());
+        assertEquals("MIT", LicenseCodes.getLicenseCode(ll.get(0)));
+
+        // a plain name with a comma is not two licenses
+        ll = JarLicenseInfo.parseBundleLicense("Apache License, Version 2.0");
+        assertEquals(1, ll.size());
+        assertEquals("Apache License, Version 2.0", ll.get(0).getName());
+
+        ll = JarLicenseInfo.parseBundleLicense("EPL-1.0;link=\"http://www.eclipse.org/legal/epl-v10.html\", MIT");
+        assertEquals(2, ll.size());
+        assertEquals("http://www.eclipse.org/legal/epl-v10.html", ll.get(0).getUrl());
+
+        assertTrue(JarLicenseInfo.parseBundleLicense("<<EXTERNAL>>").isEmpty());
+        assertTrue(JarLicenseInfo.parseBundleLicense(null).isEmpty());
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class KeywordIndexTest extends TestCase {
+
+    private static BitSet bits(int ...indices) {
+        BitSet result = new BitSet();
+        for (int i: indices) result.set(i);
+        return result;
+    }
+
+    public void testCandidates() {
+        List<List<String>> keywords = Arrays.asList(
+            Arrays.asList("he", "she"),
+            Arrays.asList("hers"),
+            Collections.<String>emptyList(),
+            Arrays.asList("his"),
+            Arrays.asList("ushers"));
+        KeywordIndex index = new KeywordIndex(keywords);
+        assertEquals(bits(2), index.candidates(""));
+        assertEquals(bits(2), index.candidates("nothing"));
+        assertEquals(bits(0, 2), index.candidates("the"));
+        // found through failure links
+        assertEquals(bits(0, 1, 2, 4), index.candidates("ushers"));
+        assertEquals(bits(0, 1, 2), index.candidates("shers"));
+        assertEquals(bits(2, 3), index.candidates("this"));
+        assertEquals(bits(0, 2, 3), index.candidates("hhis she"));
+    }
+
+}
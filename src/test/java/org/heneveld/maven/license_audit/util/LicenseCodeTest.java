@@ -1,5 +1,10 @@
 package org.heneveld.maven.license_audit.util;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
 import org.apache.maven.model.License;
 
 import junit.framework.TestCase;
@@ -65,4 +70,125 @@ public class LicenseCodeTest extends TestCase {
         }
     }
 
+    public void testMemoizedCodesCountedAndSameAsUncached() {
+        LicenseCodes.clearMemo();
+        long hits = LicenseCodes.getMemoHits(), misses = LicenseCodes.getMemoMisses();
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCode("The Apache Software License, Version 2.0"));
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCode(" the apache software license, version 2.0"));
+        assertNull(LicenseCodes.getLicenseCode("Some Other License"));
+        assertNull(LicenseCodes.getLicenseCode("some other license"));
+        assertEquals(hits+2, LicenseCodes.getMemoHits());
+        assertEquals(misses+2, LicenseCodes.getMemoMisses());
+        
+        assertEquals(LicenseCodes.getLicenseCodeUncached("eclipse public license 0.9"), LicenseCodes.getLicenseCode("Eclipse Public License 0.9"));
+        assertEquals(LicenseCodes.getLicenseCodeUncached("lgpl, version 2.1"), LicenseCodes.getLicenseCode("LGPL, version 2.1"));
+    }
+
+    public void testMemoBounded() {
+        LicenseCodes.clearMemo();
+        for (int i=0; i<LicenseCodes.MEMO_SIZE+10; i++) {
+            assertNull(LicenseCodes.getLicenseCode("license "+i));
+        }
+        long misses = LicenseCodes.getMemoMisses();
+        // the first ones have been dropped
+        assertNull(LicenseCodes.getLicenseCode("license 0"));
+        assertEquals(misses+1, LicenseCodes.getMemoMisses());
+    }
+
+    private static String firstMatchOfAll(String ls) {
+        for (Map.Entry<String,Pattern> l: LicenseCodes.KNOWN_LICENSE_CODES_WITH_PATTERN.entrySet()) {
+            if (l.getValue().matcher(ls).matches()) return l.getKey();
+            if (ls.equals(l.getKey().toLowerCase())) return l.getKey();
+        }
+        SpdxLicenses.Entry spdx = SpdxLicenses.get().lookup(ls);
+        return spdx==null ? null : spdx.id;
+    }
+
+    public void testKeywordsSameAsTryingAllPatterns() {
+        List<String> names = new ArrayList<String>();
+        for (String code: LicenseCodes.KNOWN_LICENSE_CODES_WITH_REGEX.keySet()) {
+            names.add(code);
+            names.add(LicenseCodes.KNOWN_LICENSE_CODES_WITH_LICENSE.get(code).getName());
+        }
+        names.add("The Apache Software License, Version 2.0");
+        names.add("ALv2");
+        names.add("GNU lesser license (lgpl3) 3");
+        names.add("lesser GNU license (gpl3) 3");
+        names.add("simplified (freebsd) bsd 2 clause license");
+        names.add("new bsd");
+        names.add("CDDL + GPLv2 with classpath exception");
+        names.add("Eclipse Public License 0.9");
+        names.add("ISC License");
+        for (String name: names) {
+            String ls = name.toLowerCase().trim();
+            assertEquals("lookup of "+name, firstMatchOfAll(ls), LicenseCodes.getLicenseCodeUncached(ls));
+        }
+    }
+
+    public void testKeywordsDerivedFromMainName() {
+        assertEquals("eclipse", LicenseCodes.literalPrefix("eclipse"+LicenseCodes.anyNumberOf(" public")));
+        assertEquals("mi", LicenseCodes.literalPrefix("mit?"));
+        assertEquals("", LicenseCodes.literalPrefix("(a|b)c"));
+        assertEquals("", LicenseCodes.literalPrefix("ab|cd"));
+        assertTrue(LicenseCodes.KNOWN_LICENSE_CODES_WITH_KEYWORDS.get("MPL-2.0").contains("mozilla"));
+        assertTrue(LicenseCodes.KNOWN_LICENSE_CODES_WITH_KEYWORDS.get("LGPL-2.1").contains("lgpl"));
+        assertFalse(LicenseCodes.KNOWN_LICENSE_CODES_WITH_KEYWORDS.get("BSD-3-Clause").isEmpty());
+    }
+
+    public void testSpdxLicensesWhereNoPattern() {
+        assertEquals("ISC", LicenseCodes.getLicenseCode("ISC License"));
+        assertEquals("BSL-1.0", LicenseCodes.getLicenseCode("Boost Software License - Version 1.0"));
+        assertEquals("Zlib", LicenseCodes.getLicenseCode("zlib"));
+        // patterns take precedence
+        assertEquals("GPL-2.0", LicenseCodes.getLicenseCode("GNU General Public License v2.0"));
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCode("apache-2.0"));
+
+        assertEquals("ISC License", LicenseCodes.lookupCode("ISC").getName());
+        assertEquals("https://spdx.org/licenses/ISC.html", LicenseCodes.lookupCode("isc").getUrl());
+        assertEquals("Apache License, version 2.0", LicenseCodes.lookupCode("Apache-2.0").getName());
+        assertNull(LicenseCodes.lookupCode("not-a-license"));
+    }
+
+    public void testNormalizeUrl() {
+        assertEquals("apache.org/licenses/license-2.0", LicenseCodes.normalizeUrl("http://www.apache.org/licenses/LICENSE-2.0.txt"));
+        assertEquals("apache.org/licenses/license-2.0", LicenseCodes.normalizeUrl(" https://apache.org/licenses/LICENSE-2.0/ "));
+        assertEquals("opensource.org/licenses/mit-license", LicenseCodes.normalizeUrl("http://www.opensource.org/licenses/mit-license.php"));
+        assertEquals("eclipse.org/legal/epl-v10", LicenseCodes.normalizeUrl("www.eclipse.org/legal/epl-v10.html"));
+    }
+
+    public void testCodesFromUrls() {
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCodeFromUrl("http://www.apache.org/licenses/LICENSE-2.0.txt"));
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCodeFromUrl("https://opensource.org/licenses/Apache-2.0"));
+        assertEquals("MIT", LicenseCodes.getLicenseCodeFromUrl("https://opensource.org/licenses/MIT"));
+        assertEquals("MIT", LicenseCodes.getLicenseCodeFromUrl("http://www.opensource.org/licenses/mit-license.php"));
+        assertEquals("EPL-1.0", LicenseCodes.getLicenseCodeFromUrl("https://www.eclipse.org/legal/epl-v10.html"));
+        assertEquals("ISC", LicenseCodes.getLicenseCodeFromUrl("https://opensource.org/licenses/ISC"));
+        assertEquals("GPL-2.0", LicenseCodes.getLicenseCodeFromUrl("https://www.gnu.org/licenses/old-licenses/gpl-2.0.html"));
+        // given for both LGPL-2.0 and LGPL-2.1
+        assertNull(LicenseCodes.getLicenseCodeFromUrl("http://www.gnu.org/licenses/lgpl-2.0.html"));
+        assertNull(LicenseCodes.getLicenseCodeFromUrl("http://example.com/license"));
+        assertNull(LicenseCodes.getLicenseCodeFromUrl(null));
+
+        // name preferred, then url
+        assertEquals("MIT", LicenseCodes.getLicenseCode(LicenseCodes.newLicense("see url", "https://opensource.org/licenses/MIT", null)));
+        assertEquals("MIT", LicenseCodes.getLicenseCode(LicenseCodes.newLicense(null, "https://opensource.org/licenses/MIT", null)));
+        assertEquals("MIT", LicenseCodes.getLicenseCode(LicenseCodes.newLicense("", "https://opensource.org/licenses/MIT", null)));
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCode(LicenseCodes.newLicense("Apache 2", "http://example.com/license", null)));
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCode(LicenseCodes.newLicense("Apache 2", "https://opensource.org/licenses/MIT", null)));
+        assertNull(LicenseCodes.getLicenseCode(LicenseCodes.newLicense("see url", "http://example.com/license", null)));
+    }
+
+    public void testUrlNotUsedWhereNameIsMoreThanTheLicense() {
+        assertNull(LicenseCodes.getLicenseCode(LicenseCodes.newLicense(
+            "The GNU General Public License (GPL), Version 2, With Classpath Exception", "http://www.gnu.org/licenses/gpl-2.0.html", null)));
+        assertFalse("CDDL-1.1".equals(LicenseCodes.getLicenseCode(LicenseCodes.newLicense(
+            "CDDL + GPLv2 with classpath exception", "https://glassfish.java.net/public/CDDL+GPL_1_1.html", null))));
+        assertNull(LicenseCodes.getLicenseCode(LicenseCodes.newLicense(
+            "Foo License and Bar License", "https://opensource.org/licenses/MIT", null)));
+        assertNull(LicenseCodes.getLicenseCode(LicenseCodes.newLicense(
+            "Foo License or Bar License", "https://opensource.org/licenses/MIT", null)));
+        // names which are urls
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCode("http://www.apache.org/licenses/LICENSE-2.0.txt"));
+    }
+
 }
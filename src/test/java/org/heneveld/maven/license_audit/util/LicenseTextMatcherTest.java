@@ -0,0 +1,131 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class LicenseTextMatcherTest extends TestCase {
+
+    static final String BSD_CLAUSES =
+        "Redistribution and use in source and binary forms, with or without\n"+
+        "modification, are permitted provided that the following conditions are met:\n"+
+        "\n"+
+        "  * Redistributions of source code must retain the above copyright notice,\n"+
+        "    this list of conditions and the following disclaimer.\n"+
+        "  * Redistributions in binary form must reproduce the above copyright notice,\n"+
+        "    this list of conditions and the following disclaimer in the documentation\n"+
+        "    and/or other materials provided with the distribution.\n";
+    static final String BSD_THIRD_CLAUSE =
+        "  * Neither the name of Foo Corp. nor the names of its contributors may be\n"+
+        "    used to endorse or promote products derived from this software without\n"+
+        "    specific prior written permission.\n";
+    static final String BSD_DISCLAIMER =
+        "\n"+
+        "THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS \"AS IS\" AND\n"+
+        "ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED\n"+
+        "WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE\n"+
+        "DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR\n"+
+        "ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES\n"+
+        "(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;\n"+
+        "LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND\n"+
+        "ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT\n"+
+        "(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS\n"+
+        "SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.\n";
+
+    static final String MIT =
+        "The MIT License (MIT)\n"+
+        "\n"+
+        "Copyright (c) 2015 Fred Bloggs\n"+
+        "\n"+
+        "Permission is hereby granted, free of charge, to any person obtaining a copy\n"+
+        "of this software and associated documentation files (the \"Software\"), to deal\n"+
+        "in the Software without restriction, including without limitation the rights\n"+
+        "to use, copy, modify, merge, publish, distribute, sublicense, and/or sell\n"+
+        "copies of the Software, and to permit persons to whom the Software is\n"+
+        "furnished to do so, subject to the following conditions:\n"+
+        "\n"+
+        "The above copyright notice and this permission notice shall be included in\n"+
+        "all copies or substantial portions of the Software.\n"+
+        "\n"+
+        "THE SOFTWARE IS PROVIDED \"AS IS\", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR\n"+
+        "IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,\n"+
+        "FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE\n"+
+        "AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER\n"+
+        "LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,\n"+
+        "OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN\n"+
+        "THE SOFTWARE.\n";
+
+    static final String APACHE_HEADER =
+        "   Copyright 2012 Foo Corp.\n"+
+        "\n"+
+        "   Licensed under the Apache License, Version 2.0 (the \"License\");\n"+
+        "   you may not use this file except in compliance with the License.\n"+
+        "   You may obtain a copy of the License at\n"+
+        "\n"+
+        "       https://www.apache.org/licenses/LICENSE-2.0\n"+
+        "\n"+
+        "   Unless required by applicable law or agreed to in writing, software\n"+
+        "   distributed under the License is distributed on an \"AS IS\" BASIS,\n"+
+        "   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.\n"+
+        "   See the License for the specific language governing permissions and\n"+
+        "   limitations under the License.\n";
+
+    public void testBundledPassagesAreForKnownCodes() {
+        LicenseTextMatcher m = LicenseTextMatcher.get();
+        assertTrue(m.size()>10);
+        for (String code: m.getCodes()) {
+            assertNotNull(code, LicenseCodes.lookupCode(code));
+        }
+    }
+
+    public void testMit() {
+        LicenseTextMatcher.Match m = LicenseTextMatcher.get().match(MIT);
+        assertEquals("MIT", m.code);
+        assertTrue(""+m, m.score>0.95);
+    }
+
+    public void testApacheHeader() {
+        assertEquals("Apache-2.0", LicenseTextMatcher.get().match(APACHE_HEADER).code);
+    }
+
+    public void testBsdClauses() {
+        assertEquals("BSD-2-Clause", LicenseTextMatcher.get().match("Copyright (c) 2010 Foo Corp.\n\n"+BSD_CLAUSES+BSD_DISCLAIMER).code);
+        // 2-clause is also found, but more of 3-clause is
+        assertEquals("BSD-3-Clause", LicenseTextMatcher.get().match("Copyright (c) 2010 Foo Corp.\n\n"+BSD_CLAUSES+BSD_THIRD_CLAUSE+BSD_DISCLAIMER).code);
+    }
+
+    public void testAppendedLicenseDoesNotWin() {
+        assertEquals("Apache-2.0", LicenseTextMatcher.get().match(APACHE_HEADER+"\n\nThis product bundles bar, which is:\n\n"+MIT.substring(0, 400)).code);
+    }
+
+    public void testNoMatch() {
+        assertNull(LicenseTextMatcher.get().match("This is not a license at all, just some words about software and copyright."));
+        assertNull(LicenseTextMatcher.get().match(""));
+        assertNull(LicenseTextMatcher.get().match(null));
+        // too little of the text
+        assertNull(LicenseTextMatcher.get().match(MIT.substring(0, 300)));
+        assertEquals("MIT", LicenseTextMatcher.get().match(MIT.substring(0, 300), 0.2).code);
+    }
+
+    public void testShinglesIgnoreCasePunctuationAndNumbering() {
+        assertEquals(LicenseTextMatcher.shingles("1. The Quick, brown  fox\njumps"),
+            LicenseTextMatcher.shingles("(a) the quick brown -- fox JUMPS!"));
+        assertEquals(2, LicenseTextMatcher.shingles("the quick brown fox jumps").length);
+        assertEquals(0, LicenseTextMatcher.shingles("too few words").length);
+    }
+
+    private static void assertEquals(long[] expected, long[] actual) {
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+    }
+
+    public void testRead() throws IOException {
+        LicenseTextMatcher m = LicenseTextMatcher.read(new StringReader(
+            "# comment\n== A\none two three four five six\n== B\nseven eight nine ten eleven\n"));
+        assertEquals(2, m.size());
+        assertEquals("B", m.match("zero seven eight nine ten eleven twelve").code);
+        assertEquals(1.0, m.match("zero seven eight nine ten eleven twelve").score);
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class OverridesFileCacheTest extends TempDirTestCase {
+
+    private File write(String name, String yaml) throws IOException {
+        File f = new File(dir, name);
+        Files.write(f.toPath(), yaml.getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    static final String YAML =
+        "[ { id: \"foo.group:code\", license: Apache-2.0, url: \"http://group.foo/code\", internal: true, count: 3 },\n"+
+        "  { ids: [ \"foo.group:list:1.0\", \"org.eclipse.jetty*:*:[9,10)\" ],\n"+
+        "    license: [ { name: \"Custom License\", url: \"http://group.foo/license\" }, EPL-1.0 ],\n"+
+        "    notices: [ \"Copyright Foo\", \"Copyright Bar\" ] } ]\n";
+
+    public void testCachedOnDisk() throws IOException {
+        File yaml = write("overrides.yaml", YAML);
+        File cacheDir = new File(dir, "cache");
+        OverridesFileCache c1 = new OverridesFileCache(cacheDir, new SessionCache<ProjectsOverrides>());
+        ProjectsOverrides o1 = c1.load(yaml);
+        assertEquals(0, c1.getHits());
+        assertEquals(1, c1.getMisses());
+
+        OverridesFileCache c2 = new OverridesFileCache(cacheDir, new SessionCache<ProjectsOverrides>());
+        ProjectsOverrides o2 = c2.load(yaml);
+        assertEquals(1, c2.getHits());
+        assertEquals(0, c2.getMisses());
+
+        assertEquals(o1.overridesByProject, o2.overridesByProject);
+        assertEquals(o1.getProjects().toString(), o2.getProjects().toString());
+        assertEquals(Boolean.TRUE, o2.getOverridesForProject("foo.group:code:1.0").get("internal"));
+        assertEquals(3, o2.getOverridesForProject("foo.group:code:1.0").get("count"));
+        assertEquals("http://group.foo/license", o2.getLicense("foo.group:list:1.0").get(0).getUrl());
+        // patterns work when read back
+        assertEquals("http://group.foo/license", o2.getLicense("org.eclipse.jetty:jetty-io:9.4.0").get(0).getUrl());
+
+        // a changed file is a miss
+        write("overrides.yaml", YAML.replace("http://group.foo/code", "http://code.foo"));
+        assertEquals("http://code.foo", c2.load(yaml).getUrl("foo.group:code:1.0"));
+        assertEquals(1, c2.getMisses());
+    }
+
+    public void testSessionCacheSharesInstances() throws IOException {
+        File yaml = write("overrides.yaml", YAML);
+        SessionCache<ProjectsOverrides> session = new SessionCache<ProjectsOverrides>();
+        ProjectsOverrides o1 = new OverridesFileCache(null, session).load(yaml);
+        // same content in another file is the same
+        ProjectsOverrides o2 = new OverridesFileCache(null, session).load(write("copy.yaml", YAML));
+        assertSame(o1, o2);
+
+        // and adding it elsewhere doesn't change it
+        ProjectsOverrides target = new ProjectsOverrides().addAll(o1);
+        target.addAll(ProjectsOverrides.fromReader(new StringReader("[{ id: \"foo.group:code\", url: \"http://other\" }]")));
+        assertEquals("http://other", target.getUrl("foo.group:code:1.0"));
+        assertEquals("http://group.foo/code", o1.getUrl("foo.group:code:1.0"));
+    }
+
+    public void testInvalidNotCached() throws IOException {
+        File yaml = write("overrides.yaml", "[ { id: \"foo\", license: \"not a known code\" } ]");
+        File cacheDir = new File(dir, "cache");
+        try {
+            new OverridesFileCache(cacheDir, new SessionCache<ProjectsOverrides>()).load(yaml);
+            fail("should be invalid");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("foo"));
+        }
+        File[] cached = cacheDir.listFiles();
+        assertTrue(cached==null || cached.length==0);
+    }
+
+    public void testUnsupportedValuesStillLoaded() throws IOException {
+        File yaml = write("overrides.yaml", "[ { id: \"foo\", url: \"http://foo\", released: 2015-01-01 } ]");
+        File cacheDir = new File(dir, "cache");
+        assertEquals("http://foo", new OverridesFileCache(cacheDir, new SessionCache<ProjectsOverrides>()).load(yaml).getUrl("foo"));
+        assertEquals("http://foo", new OverridesFileCache(cacheDir, new SessionCache<ProjectsOverrides>()).load(yaml).getUrl("foo"));
+    }
+
+    public void testUnwritableDirStillLoaded() throws IOException {
+        File yaml = write("overrides.yaml", YAML);
+        // a file where the cache directory should be, so nothing can be written there
+        File cacheDir = write("not-a-dir", "");
+        OverridesFileCache c = new OverridesFileCache(cacheDir, new SessionCache<ProjectsOverrides>());
+        assertEquals("http://group.foo/code", c.load(yaml).getUrl("foo.group:code:1.0"));
+        assertEquals(1, c.getMisses());
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class OverridesIndexTest extends TempDirTestCase {
+
+    static final String YAML = OverridesFileCacheTest.YAML;
+
+    private OverridesIndex build(String yaml) throws IOException {
+        File f = new File(dir, "overrides.idx");
+        OverridesIndex.write(ProjectsOverrides.fromReader(new StringReader(yaml)), f);
+        return OverridesIndex.open(f);
+    }
+
+    public void testLookups() throws IOException {
+        ProjectsOverrides fromYaml = ProjectsOverrides.fromReader(new StringReader(YAML));
+        OverridesIndex index = build(YAML);
+        assertEquals(3, index.size());
+        assertEquals(Arrays.asList("foo.group:code", "foo.group:list:1.0", "org.eclipse.jetty*:*:[9,10)"), index.getIds());
+        assertEquals(fromYaml.overridesByProject.get("foo.group:list:1.0"), index.get("foo.group:list:1.0"));
+        assertNull(index.get("foo.group"));
+        assertNull(index.get("foo.group:code:1.0"));
+        assertNull(index.get("zzz"));
+
+        ProjectsOverrides o = ProjectsOverrides.fromIndex(index);
+        assertEquals(fromYaml.getProjects().toString(), o.getProjects().toString());
+        for (String id: Arrays.asList("foo.group:code:1.0", "foo.group:list:1.0", "org.eclipse.jetty:jetty-io:9.4.0", "org.eclipse.jetty:jetty-io:10.0.0")) {
+            assertEquals(id, fromYaml.getOverridesForProject(id), o.getOverridesForProject(id));
+            if (fromYaml.getLicense(id)!=null) {
+                assertEquals(id, fromYaml.getLicense(id).get(0).getName(), o.getLicense(id).get(0).getName());
+            }
+        }
+        assertEquals(Boolean.TRUE, o.getOverridesForProject("foo.group:code:1.0").get("internal"));
+        assertEquals("http://group.foo/license", o.getLicense("org.eclipse.jetty:jetty-io:9.4.0").get(0).getUrl());
+        assertTrue(o.getOverridesForProject("other:thing:1.0").isEmpty());
+    }
+
+    public void testYamlAddedOverIndex() throws IOException {
+        ProjectsOverrides o = ProjectsOverrides.fromIndex(build(YAML));
+        o.addFromYaml(new StringReader(
+            "[ { id: \"foo.group:code\", url: \"http://code.foo\" },\n"+
+            "  { id: \"org.eclipse.jetty*:*:[9,10)\", license: MIT },\n"+
+            "  { id: \"new.group\", license: MIT } ]"));
+        assertEquals("http://code.foo", o.getUrl("foo.group:code:1.0"));
+        // the rest of the entry is kept
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCode(o.getLicense("foo.group:code:1.0").get(0)));
+        assertEquals("MIT", LicenseCodes.getLicenseCode(o.getLicense("org.eclipse.jetty:jetty-io:9.4.0").get(0)));
+        assertEquals("MIT", LicenseCodes.getLicenseCode(o.getLicense("new.group:thing:1.0").get(0)));
+        assertEquals(Arrays.asList("foo.group:code", "foo.group:list:1.0", "org.eclipse.jetty*:*:[9,10)", "new.group"),
+            Arrays.asList(o.getProjects().toArray()));
+    }
+
+    public void testRebuildWhileOpen() throws IOException {
+        OverridesIndex old = build(YAML);
+        OverridesIndex rebuilt = build("[ { id: \"foo.group:code\", url: \"http://code.foo\" } ]");
+        // the old file is replaced, not changed, so the mapping of it is still valid
+        assertEquals("http://group.foo/code", old.get("foo.group:code").get("url"));
+        assertEquals("http://code.foo", rebuilt.get("foo.group:code").get("url"));
+        assertEquals(1, rebuilt.size());
+    }
+
+    public void testNotAnIndex() throws IOException {
+        File f = new File(dir, "overrides.yaml");
+        Files.write(f.toPath(), YAML.getBytes(StandardCharsets.UTF_8));
+        try {
+            OverridesIndex.open(f);
+            fail("should not be an index");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Not an overrides index"));
+        }
+    }
+
+}
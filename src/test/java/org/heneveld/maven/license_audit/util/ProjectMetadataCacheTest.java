@@ -0,0 +1,69 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.repository.LocalRepository;
+
+public class ProjectMetadataCacheTest extends TempDirTestCase {
+
+    private DefaultRepositorySystemSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = new DefaultRepositorySystemSession();
+        session.setLocalRepositoryManager(new SimpleLocalRepositoryManagerFactory().newInstance(session, new LocalRepository(dir)));
+    }
+
+    private File writePom(String artifactId, String version, String body) throws IOException {
+        File f = new File(dir, "g/"+artifactId+"/"+version+"/"+artifactId+"-"+version+".pom");
+        f.getParentFile().mkdirs();
+        Files.write(f.toPath(), ("<project><modelVersion>4.0.0</modelVersion>"+
+            "<groupId>g</groupId><artifactId>"+artifactId+"</artifactId><version>"+version+"</version>"+
+            body+"</project>").getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    private static String importing(String artifactId, String version) {
+        return "<dependencyManagement><dependencies><dependency><groupId>g</groupId><artifactId>"+artifactId+"</artifactId>"+
+            "<version>"+version+"</version><type>pom</type><scope>import</scope></dependency></dependencies></dependencyManagement>";
+    }
+
+    private String checksum() {
+        return ProjectMetadataCache.checksumOfPomAndParents(session, new Coords("g", "app", "1.0", "1.0", "jar", null));
+    }
+
+    public void testChecksumIncludesParentsAndImportedBoms() throws IOException {
+        writePom("parent", "1", "<packaging>pom</packaging><properties><bom.version>2</bom.version></properties>"+
+            importing("bom", "${bom.version}"));
+        writePom("app", "1.0", "<parent><groupId>g</groupId><artifactId>parent</artifactId><version>1</version></parent>"+
+            importing("other-bom", "${project.version}"));
+        writePom("bom", "2", "<packaging>pom</packaging>"+importing("other-bom", "1.0"));
+        writePom("other-bom", "1.0", "<packaging>pom</packaging>");
+        String c1 = checksum();
+        assertNotNull(c1);
+        assertEquals(c1, checksum());
+
+        // a changed BOM (e.g. a new SNAPSHOT) changes the checksum
+        writePom("bom", "2", "<packaging>pom</packaging><description>changed</description>"+importing("other-bom", "1.0"));
+        String c2 = checksum();
+        assertFalse(c1.equals(c2));
+        writePom("other-bom", "1.0", "<packaging>pom</packaging><description>changed</description>");
+        assertFalse(c2.equals(checksum()));
+
+        // and a missing one means it can't be cached
+        new File(dir, "g/other-bom/1.0/other-bom-1.0.pom").delete();
+        assertNull(checksum());
+    }
+
+    public void testUnresolvableImportNotCached() throws IOException {
+        writePom("app", "1.0", importing("bom", "${unknown.version}"));
+        assertNull(checksum());
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Developer;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Organization;
+import org.apache.maven.project.MavenProject;
+
+import junit.framework.TestCase;
+
+public class ProjectMetadataTest extends TestCase {
+
+    public void testRoundTrip() throws IOException {
+        Model m = new Model();
+        m.setGroupId("foo.group");
+        m.setArtifactId("code");
+        m.setVersion("1.0");
+        m.setName("Foo Code");
+        m.setUrl("http://group.foo/code");
+        m.setInceptionYear("2010");
+        Organization org = new Organization();
+        org.setName("Foo Org");
+        m.setOrganization(org);
+        m.addLicense(LicenseCodes.newLicense("Apache 2", "http://www.apache.org/licenses/LICENSE-2.0", null));
+        Developer dev = new Developer();
+        dev.setName("Fred");
+        m.addDeveloper(dev);
+        Dependency d = new Dependency();
+        d.setGroupId("foo.group");
+        d.setArtifactId("dep");
+        d.setVersion("2.0");
+        d.setScope("test");
+        d.setOptional(true);
+        m.addDependency(d);
+        MavenProject p = new MavenProject(m);
+        p.setOriginalModel(m);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ProjectMetadata.of(p).writeTo(new DataOutputStream(bytes));
+        MavenProject p2 = ProjectMetadata.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+            .toProject(new DefaultArtifactHandler("jar"));
+
+        assertEquals("foo.group:code:1.0", Coords.of(p2).normal());
+        assertEquals("Foo Code", p2.getName());
+        assertEquals("http://group.foo/code", MavenUtil.getDeclaredUrl(p2));
+        assertEquals("2010", p2.getInceptionYear());
+        assertEquals("Foo Org", p2.getOrganization().getName());
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCode(p2.getLicenses().get(0).getName()));
+        assertEquals("Fred", p2.getDevelopers().get(0).getName());
+        assertTrue(p2.getContributors().isEmpty());
+        assertEquals("foo.group:dep:jar:2.0", Coords.of(p2.getDependencies().get(0)).baseArtifact());
+        assertEquals("test", p2.getDependencies().get(0).getScope());
+        assertTrue(p2.getDependencies().get(0).isOptional());
+    }
+
+}
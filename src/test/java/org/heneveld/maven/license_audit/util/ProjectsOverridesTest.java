@@ -2,6 +2,7 @@ package org.heneveld.maven.license_audit.util;
 
 import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.util.Map;
 
 import org.apache.maven.model.Model;
 import org.apache.maven.project.MavenProject;
@@ -56,4 +57,87 @@ public class ProjectsOverridesTest extends TestCase {
         assertEquals("http://foo", l.getOverridesForProject("one").get("url"));
     }
 
+    public void testLookupsMemoizedUntilEntriesAdded() {
+        ProjectsOverrides l = ProjectsOverrides.fromReader(new StringReader(
+            "[{ id: \"foo.group\", url: \"http://group\" }, { id: \"foo.group:code\", license: Apache-2.0 }]"));
+        Map<String, Object> o = l.getOverridesForProject("foo.group:code:1.0");
+        assertEquals("http://group", o.get("url"));
+        assertEquals("Apache-2.0", o.get("license"));
+        assertSame(o, l.getOverridesForProject("foo.group:code:1.0"));
+        MavenProject p = newMavenProject("foo.group", "code", "1.0");
+        assertSame(l.getOverridesForProject(p), l.getOverridesForProject(p));
+        try {
+            o.put("url", "http://changed");
+            fail("should be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        l.addFromYaml(new StringReader("[{ id: \"foo.group:code:1.0\", url: \"http://code\" }]"));
+        assertEquals("http://code", l.getOverridesForProject("foo.group:code:1.0").get("url"));
+        assertEquals("http://code", l.getOverridesForProject(p).get("url"));
+        assertEquals("http://group", l.getOverridesForProject("foo.group:code:1.1").get("url"));
+    }
+
+    public void testPatterns() {
+        ProjectsOverrides l = ProjectsOverrides.fromReader(new StringReader(
+            "[{ id: \"com.fasterxml.*\", license: Apache-2.0, url: \"http://fasterxml\" },"+
+            " { id: \"org.eclipse.jetty*:*:[9,10)\", license: EPL-1.0 },"+
+            " { id: \"org.eclipse.jetty*:jetty-?til:[9,10)\", url: \"http://jetty-util\" },"+
+            " { id: \"com.fasterxml.jackson.core:jackson-databind\", url: \"http://databind\" }]"));
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCode(l.getLicense("com.fasterxml.jackson.core:jackson-core:2.9.0").get(0)));
+        assertEquals("http://fasterxml", l.getUrl("com.fasterxml.jackson.core:jackson-core:2.9.0"));
+        // a plain id trumps a pattern
+        assertEquals("http://databind", l.getUrl("com.fasterxml.jackson.core:jackson-databind:2.9.0"));
+        assertNull(l.getLicense("com.fasterxmlish:foo:1.0"));
+
+        assertEquals("EPL-1.0", LicenseCodes.getLicenseCode(l.getLicense("org.eclipse.jetty:jetty-server:9.4.1").get(0)));
+        assertEquals("EPL-1.0", LicenseCodes.getLicenseCode(l.getLicense("org.eclipse.jetty.websocket:websocket-api:9.0").get(0)));
+        assertNull(l.getLicense("org.eclipse.jetty:jetty-server:10.0.0"));
+        assertNull(l.getLicense("org.eclipse.jetty:jetty-server"));
+        // more segments trumps fewer, and both apply
+        assertEquals("http://jetty-util", l.getUrl("org.eclipse.jetty:jetty-util:9.4.1"));
+        assertEquals("EPL-1.0", LicenseCodes.getLicenseCode(l.getLicense("org.eclipse.jetty:jetty-util:9.4.1").get(0)));
+        assertNull(l.getUrl("org.eclipse.jetty:jetty-server:9.4.1"));
+
+        assertEquals("EPL-1.0", LicenseCodes.getLicenseCode(l.getLicense(newMavenProject("org.eclipse.jetty", "jetty-io", "9.2.0")).get(0)));
+
+        // the special wildcard forms are unchanged
+        assertFalse(IdPatterns.isPattern("dom4j:dom4j:*"));
+        assertFalse(IdPatterns.isPattern("dom4j:*:*"));
+        assertTrue(IdPatterns.isPattern("*:dom4j"));
+    }
+
+    public void testWildcardIdsTrumpPatterns() {
+        ProjectsOverrides l = ProjectsOverrides.fromReader(new StringReader(
+            "[{ id: \"com.fasterxml.jackson.core:*:*\", license: MIT },"+
+            " { id: \"com.fasterxml.*\", license: EPL-1.0, url: \"http://fasterxml\" },"+
+            " { id: \"com.fasterxml.jackson.core:jackson-databind:*\", url: \"http://databind\" }]"));
+        MavenProject core = newMavenProject("com.fasterxml.jackson.core", "jackson-core", "2.9.0");
+        assertEquals("MIT", LicenseCodes.getLicenseCode(l.getLicense(core).get(0)));
+        // the pattern still applies to what isn't given
+        assertEquals("http://fasterxml", l.getUrl(core));
+        MavenProject databind = newMavenProject("com.fasterxml.jackson.core", "jackson-databind", "2.9.0");
+        assertEquals("http://databind", l.getUrl(databind));
+        assertEquals("MIT", LicenseCodes.getLicenseCode(l.getLicense(databind).get(0)));
+        assertEquals("EPL-1.0", LicenseCodes.getLicenseCode(l.getLicense(newMavenProject("com.fasterxml.woodstox", "woodstox-core", "5.0")).get(0)));
+    }
+
+    public void testInvalidPattern() {
+        try {
+            ProjectsOverrides.fromReader(new StringReader("[{ id: \"foo*:bar:[1,\", license: MIT }]"));
+            fail("should have failed");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("foo*:bar:[1,"));
+        }
+    }
+
+    public void testPatternAddedLater() {
+        ProjectsOverrides l = ProjectsOverrides.fromReader(new StringReader("[{ id: \"foo:bar\", url: \"http://bar\" }]"));
+        assertNull(l.getOverridesForProject("foo:bar:1.0").get("license"));
+        l.addFromYaml(new StringReader("[{ id: \"fo?:*\", license: MIT }]"));
+        assertEquals("MIT", l.getOverridesForProject("foo:bar:1.0").get("license"));
+        assertEquals("http://bar", l.getOverridesForProject("foo:bar:1.0").get("url"));
+    }
+
 }
@@ -0,0 +1,108 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+
+import junit.framework.TestCase;
+
+public class SessionCacheTest extends TestCase {
+
+    public void testSharedBySession() {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setCache(new DefaultRepositoryCache());
+        SessionCache<String> c = SessionCache.forSession(session, "x");
+        assertSame(c, SessionCache.forSession(session, "x"));
+        assertNotSame(c, SessionCache.forSession(session, "y"));
+        assertNotSame(c, SessionCache.forSession(new DefaultRepositorySystemSession(), "x"));
+    }
+
+    public void testRemove() throws Exception {
+        SessionCache<String> c = new SessionCache<String>();
+        final AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = new Callable<String>() {
+            public String call() {
+                return "v"+loads.incrementAndGet();
+            }
+        };
+        assertEquals("v1", c.get("k", loader));
+        assertEquals("v1", c.get("k", loader));
+        c.remove("k");
+        assertEquals(0, c.size());
+        assertEquals("v2", c.get("k", loader));
+    }
+
+    public void testRemoveExpected() throws Exception {
+        SessionCache<String> c = new SessionCache<String>();
+        final AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = new Callable<String>() {
+            public String call() {
+                return new String("v"+loads.incrementAndGet());
+            }
+        };
+        String v1 = c.get("k", loader);
+        assertTrue(c.remove("k", v1));
+        String v2 = c.get("k", loader);
+        // a stale remove (of the value it had before) leaves the new value
+        assertFalse(c.remove("k", v1));
+        assertFalse(c.remove("k", new String("v2")));
+        assertSame(v2, c.get("k", loader));
+        assertEquals(1, c.size());
+        assertFalse(c.remove("other", v2));
+    }
+
+    public void testConcurrentLoadsOnce() throws Exception {
+        final SessionCache<String> c = new SessionCache<String>();
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i=0; i<8; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        start.await();
+                        return c.get("k", new Callable<String>() {
+                            public String call() throws Exception {
+                                loads.incrementAndGet();
+                                Thread.sleep(50);
+                                return "v";
+                            }
+                        });
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<String> f: results) assertEquals("v", f.get());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, c.getMisses());
+        assertEquals(7, c.getHits());
+    }
+
+    public void testFailureNotCached() {
+        SessionCache<String> c = new SessionCache<String>();
+        try {
+            c.get("k", new Callable<String>() {
+                public String call() {
+                    throw new IllegalArgumentException("boom");
+                }
+            });
+            fail("should have failed");
+        } catch (IllegalArgumentException e) {
+            assertEquals("boom", e.getMessage());
+        }
+        assertEquals(0, c.size());
+    }
+
+}
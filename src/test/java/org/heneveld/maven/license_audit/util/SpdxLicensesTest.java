@@ -0,0 +1,56 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+
+public class SpdxLicensesTest extends TestCase {
+
+    public void testBundledList() {
+        SpdxLicenses l = SpdxLicenses.get();
+        assertEquals("3.20", l.getListVersion());
+        assertTrue(l.size()>500);
+        assertSame(l, SpdxLicenses.get());
+
+        assertEquals("ISC", l.byId("isc").id);
+        assertEquals("ISC License", l.byId("ISC").name);
+        assertTrue(l.byId("ISC").osiApproved);
+        assertTrue(l.byId("GPL-2.0-with-classpath-exception").deprecated);
+        assertNull(l.byId("not-a-license"));
+
+        assertEquals("Zlib", l.byName(" zlib  License").id);
+        assertEquals("ISC", l.byUrl("http://opensource.org/licenses/ISC/").id);
+        assertEquals("BSL-1.0", l.byUrl("https://spdx.org/licenses/BSL-1.0.html").id);
+        assertEquals("BSL-1.0", l.bySignature("The Boost Software License, Version 1.0").id);
+        assertEquals("CC0-1.0", l.lookup("Creative Commons Zero 1.0 Universal").id);
+        assertEquals("WTFPL", l.lookup("WTFPL").id);
+    }
+
+    public void testSignature() {
+        assertEquals("2 apache", SpdxLicenses.signature("The Apache License, Version 2.0"));
+        assertEquals("2 apache", SpdxLicenses.signature("apache licence v2"));
+        assertEquals("2.1 gnu lesser", SpdxLicenses.signature("GNU Lesser License v2.1."));
+        assertEquals("", SpdxLicenses.signature("the license"));
+    }
+
+    public void testAmbiguousNotFound() throws Exception {
+        SpdxLicenses l = SpdxLicenses.read(new StringReader(
+            "# SPDX License List 0.1 (today)\n"+
+            "A-1\t-\tFoo License 1.0\thttp://foo.org/license\n"+
+            "B-1\t-\tFoo License v1\thttp://foo.org/license/\n"+
+            "C-1\td\tBar License\thttp://bar.org/a.txt http://bar.org/b.txt\n"+
+            "C-1.0\t-\tBar License 1\thttp://bar.org/a.txt\n"+
+            "D-1\to\tBar\t\n"));
+        assertEquals("0.1", l.getListVersion());
+        assertEquals(5, l.size());
+        assertNull(l.bySignature("foo 1"));
+        assertNull(l.byUrl("http://foo.org/license"));
+        assertEquals("A-1", l.byName("foo license 1.0").id);
+        // current preferred to deprecated
+        assertEquals("C-1.0", l.byUrl("http://bar.org/a.txt").id);
+        assertEquals("C-1", l.byUrl("http://bar.org/b.txt").id);
+        assertEquals("D-1", l.lookup("bar").id);
+        assertEquals("C-1", l.lookup("bar license").id);
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+
+import junit.framework.TestCase;
+
+public class StreamingPomReaderTest extends TestCase {
+
+    StreamingPomReader reader = new StreamingPomReader(new StreamingPomReader.PomResolver() {
+        public File resolvePom(String groupId, String artifactId, String version) throws IOException {
+            URL url = getClass().getResource("poms/"+groupId+"-"+artifactId+"-"+version+".pom");
+            if (url==null) return null;
+            try {
+                return new File(url.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+    });
+
+    public void testParentOnly() throws IOException {
+        ProjectMetadata m = reader.read("foo.group", "parent", "1.0");
+        assertEquals("Foo Parent", m.name);
+        assertEquals("pom", m.packaging);
+        assertEquals("Part of parent", m.description);
+        assertEquals("http://group.foo/parent", m.url);
+        assertEquals("Foo Org", m.organization.getName());
+        assertEquals("Apache-2.0", LicenseCodes.getLicenseCode(m.licenses.get(0).getName()));
+        assertEquals(1, m.dependencies.size());
+        assertEquals("test", m.dependencies.get(0).getScope());
+    }
+
+    public void testInheritance() throws IOException {
+        MavenProject p = reader.read("foo.group", "child", "1.0").toProject(new DefaultArtifactHandler("jar"));
+        assertEquals("foo.group:child:1.0", Coords.of(p).normal());
+        // name not inherited, so maven falls back to the artifactId
+        assertEquals("child", p.getName());
+        assertEquals("jar", p.getPackaging());
+        // description inherited, interpolated in the child
+        assertEquals("Part of child", p.getDescription());
+        // declared url is taken from the parent, as the parent declares it
+        assertEquals("http://group.foo/parent", MavenUtil.getDeclaredUrl(p));
+        assertEquals("2010", p.getInceptionYear());
+        assertEquals("Foo Org", p.getOrganization().getName());
+        assertEquals("http://www.apache.org/licenses/LICENSE-2.0.txt", p.getLicenses().get(0).getUrl());
+        assertEquals("Fred", p.getDevelopers().get(0).getName());
+        assertEquals(1, p.getDevelopers().size());
+
+        // child's dependencies first, then the parent's, with management and imports applied
+        assertEquals(3, p.getDependencies().size());
+        Dependency managed = p.getDependencies().get(0);
+        assertEquals("foo.group:managed:jar:2.0", Coords.of(managed).baseArtifact());
+        assertEquals("runtime", managed.getScope());
+        assertTrue(managed.isOptional());
+        Dependency imported = p.getDependencies().get(1);
+        assertEquals("foo.group:imported:jar:3.0", Coords.of(imported).baseArtifact());
+        assertEquals("compile", imported.getScope());
+        assertFalse(imported.isOptional());
+        assertEquals("junit:junit:jar:4.8.2", Coords.of(p.getDependencies().get(2)).baseArtifact());
+    }
+
+    public void testMissingPom() {
+        try {
+            reader.read("foo.group", "missing", "1.0");
+            fail("should have failed");
+        } catch (IOException e) {
+            assertTrue(e.toString(), e.getMessage().contains("foo.group:missing:1.0"));
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package org.heneveld.maven.license_audit.util;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import junit.framework.TestCase;
+
+/** A test with a new temporary directory, {@link #dir}, for each test method, deleted afterwards. */
+public abstract class TempDirTestCase extends TestCase {
+
+    protected File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory(getClass().getSimpleName()).toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delete(dir);
+    }
+
+    protected static void delete(File f) {
+        File[] children = f.listFiles();
+        if (children!=null) for (File c: children) delete(c);
+        f.delete();
+    }
+
+}